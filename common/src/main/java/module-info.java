@@ -9,6 +9,7 @@ module unreal.archive.common {
 	requires com.fasterxml.jackson.core;
 	requires com.fasterxml.jackson.databind;
 	requires com.fasterxml.jackson.dataformat.yaml;
+	requires com.fasterxml.jackson.dataformat.smile;
 	requires com.fasterxml.jackson.datatype.jsr310;
 
 	exports org.unrealarchive.common;
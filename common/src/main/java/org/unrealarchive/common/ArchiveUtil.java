@@ -11,6 +11,7 @@ import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Duration;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -54,28 +55,49 @@ public class ArchiveUtil {
 
 	public static Path extract(Path source, Path destination, Duration timeout)
 		throws IOException, InterruptedException {
-		return extract(source, destination, timeout, false, new HashSet<>());
+		return extract(source, destination, timeout, false, true, new HashSet<>());
 	}
 
 	public static Path extract(Path source, Path destination, Duration timeout, boolean recursive)
 		throws IOException, InterruptedException {
-		return extract(source, destination, timeout, recursive, new HashSet<>());
+		return extract(source, destination, timeout, recursive, true);
 	}
 
-	private static Path extract(Path source, Path destination, Duration timeout, boolean recursive, Set<Path> visited)
+	/**
+	 * @param inProcess when true, zip, gzip and tar archives are extracted
+	 *                  in-process, falling back to external tools only for
+	 *                  archives which can not be read that way
+	 */
+	public static Path extract(Path source, Path destination, Duration timeout, boolean recursive, boolean inProcess)
+		throws IOException, InterruptedException {
+		return extract(source, destination, timeout, recursive, inProcess, new HashSet<>());
+	}
+
+	private static Path extract(Path source, Path destination, Duration timeout, boolean recursive, boolean inProcess,
+								Set<Path> visited)
 		throws IOException, InterruptedException {
 
 		if (!Files.isDirectory(destination)) Files.createDirectories(destination);
 
-		Path result;
+		Path result = null;
 
 		String ext = Util.extension(source).toLowerCase();
-		if (ARCHIVES_7ZIP.contains(ext)) {
-			result = exec(sevenZipCmd(source, destination), source, destination, timeout, ALLOWED_EXIT_ZIP);
-		} else if (ARCHIVES_RAR.contains(ext)) {
-			result = exec(unrarCmd(source, destination), source, destination, timeout, ALLOWED_EXIT_UNRAR);
-		} else {
-			throw new UnsupportedArchiveException(String.format("Format %s not supported for archive %s", ext, source));
+		if (inProcess && StreamExtractor.FORMATS.contains(ext)) {
+			try {
+				result = StreamExtractor.extract(source, destination, timeout);
+			} catch (IOException e) {
+				// not readable in-process (eg. encrypted, or an unusual compression method), let the external tools try
+			}
+		}
+
+		if (result == null) {
+			if (ARCHIVES_7ZIP.contains(ext)) {
+				result = exec(sevenZipCmd(source, destination), source, destination, timeout, ALLOWED_EXIT_ZIP);
+			} else if (ARCHIVES_RAR.contains(ext)) {
+				result = exec(unrarCmd(source, destination), source, destination, timeout, ALLOWED_EXIT_UNRAR);
+			} else {
+				throw new UnsupportedArchiveException(String.format("Format %s not supported for archive %s", ext, source));
+			}
 		}
 
 		visited.add(source);
@@ -92,7 +114,7 @@ public class ArchiveUtil {
 
 			for (Path path : next) {
 				try {
-					if (!visited.contains(path)) extract(path, result.resolve(Util.plainName(path)), timeout, recursive, visited);
+					if (!visited.contains(path)) extract(path, result.resolve(Util.plainName(path)), timeout, recursive, inProcess, visited);
 				} catch (Exception e) {
 					// be lenient with recursive extraction...
 				}
@@ -102,6 +124,34 @@ public class ArchiveUtil {
 		return result;
 	}
 
+	/**
+	 * Read the files within an archive into memory, rather than extracting
+	 * them to disk.
+	 * <p>
+	 * Only zip archives may be read into memory, and archives containing
+	 * other archives are not, since those would need to be extracted
+	 * recursively.
+	 *
+	 * @param source    archive to read
+	 * @param maxSize   maximum total uncompressed size of files to read
+	 * @param skipTypes additional file extensions which, if present in the
+	 *                  archive, prevent it from being read into memory
+	 * @return files read, or null if the archive can not be read into memory,
+	 * and should be extracted instead
+	 */
+	public static List<MemoryFile> readInMemory(Path source, long maxSize, Set<String> skipTypes) {
+		if (!Util.extension(source).equalsIgnoreCase("zip")) return null;
+
+		final Set<String> skip = new HashSet<>(ARCHIVES);
+		skip.addAll(skipTypes);
+		try {
+			return StreamExtractor.readZip(source, maxSize, skip);
+		} catch (IOException e) {
+			// not readable in-process, regular extraction will fall back to external tools
+			return null;
+		}
+	}
+
 	public static void cleanPath(Path path) throws IOException {
 		if (!Files.exists(path)) return;
 
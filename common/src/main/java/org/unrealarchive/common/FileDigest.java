@@ -0,0 +1,115 @@
+package org.unrealarchive.common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Computes several digests of a file's content in a single pass.
+ * <p>
+ * Files are read via memory-mapped regions, so content is not copied onto
+ * the heap, and each region is fed to all requested digests before moving
+ * on to the next. Files of any size are supported.
+ */
+public class FileDigest {
+
+	// size of each mapped region; files larger than this are mapped in several regions
+	private static final long REGION_SIZE = 256L * 1024 * 1024;
+
+	public enum Algorithm {
+		SHA1,
+		MD5,
+		CRC32C
+	}
+
+	/**
+	 * Digest a file.
+	 *
+	 * @param path       file to digest
+	 * @param algorithms digests to compute
+	 * @return digest results
+	 * @throws IOException failed to read the file
+	 */
+	public static Result digest(Path path, Algorithm... algorithms) throws IOException {
+		final Map<Algorithm, MessageDigest> digests = new EnumMap<>(Algorithm.class);
+		CRC32C crc = null;
+		for (Algorithm a : algorithms) {
+			switch (a) {
+				case SHA1 -> digests.put(a, messageDigest("SHA-1"));
+				case MD5 -> digests.put(a, messageDigest("MD5"));
+				case CRC32C -> crc = new CRC32C();
+			}
+		}
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			final long size = channel.size();
+			for (long position = 0; position < size; position += REGION_SIZE) {
+				ByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(REGION_SIZE, size - position));
+				for (MessageDigest md : digests.values()) md.update(region.duplicate());
+				if (crc != null) crc.update(region.duplicate());
+			}
+		}
+
+		final Map<Algorithm, byte[]> results = new EnumMap<>(Algorithm.class);
+		digests.forEach((a, md) -> results.put(a, md.digest()));
+		if (crc != null) results.put(Algorithm.CRC32C, ByteBuffer.allocate(Integer.BYTES).putInt((int)crc.getValue()).array());
+
+		return new Result(results);
+	}
+
+	private static MessageDigest messageDigest(String algorithm) {
+		try {
+			return MessageDigest.getInstance(algorithm);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	/**
+	 * The digests computed for a file.
+	 */
+	public static class Result {
+
+		private final Map<Algorithm, byte[]> digests;
+
+		private Result(Map<Algorithm, byte[]> digests) {
+			this.digests = digests;
+		}
+
+		/**
+		 * @param algorithm digest algorithm
+		 * @return raw digest bytes, or null if the digest was not computed
+		 */
+		public byte[] bytes(Algorithm algorithm) {
+			byte[] digest = digests.get(algorithm);
+			return digest == null ? null : digest.clone();
+		}
+
+		/**
+		 * @param algorithm digest algorithm
+		 * @return lowercase hex representation of the digest, as used for content hashes
+		 */
+		public String hex(Algorithm algorithm) {
+			byte[] digest = digests.get(algorithm);
+			return digest == null ? null : HexFormat.of().formatHex(digest);
+		}
+
+		/**
+		 * @param algorithm digest algorithm
+		 * @return base64 representation of the digest, as used by HTTP `Content-MD5` headers
+		 */
+		public String base64(Algorithm algorithm) {
+			byte[] digest = digests.get(algorithm);
+			return digest == null ? null : Base64.getEncoder().encodeToString(digest);
+		}
+	}
+}
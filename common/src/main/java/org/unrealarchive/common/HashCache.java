@@ -0,0 +1,141 @@
+package org.unrealarchive.common;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A persistent cache of file hashes, used by {@link Util#hash(Path, HashCache)}.
+ * <p>
+ * Hashes are keyed by a file's absolute path, and are only considered
+ * valid while the file's size and modification time remain unchanged, so
+ * determining the hash of a previously seen file requires only a `stat`
+ * of the file rather than reading its content.
+ * <p>
+ * The cache is stored as an append-only file of tab-separated lines, with
+ * later entries for the same path replacing earlier ones. Superseded
+ * entries are discarded when the cache is next opened.
+ */
+public class HashCache implements Closeable {
+
+	/**
+	 * A cache which retains nothing, and always computes hashes.
+	 */
+	public static final HashCache NONE = new HashCache(null, Map.of(), null);
+
+	private final Path file;
+	private final Map<String, Entry> entries;
+	private final FileChannel channel;
+
+	private HashCache(Path file, Map<String, Entry> entries, FileChannel channel) {
+		this.file = file;
+		this.entries = entries;
+		this.channel = channel;
+	}
+
+	/**
+	 * Open a hash cache, creating it if it does not exist.
+	 *
+	 * @param file cache file
+	 * @return a hash cache
+	 * @throws IOException failed to read or create the cache
+	 */
+	public static HashCache open(Path file) throws IOException {
+		final Map<String, Entry> entries = new ConcurrentHashMap<>();
+		int lines = 0;
+
+		if (Files.exists(file)) {
+			try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					String[] parts = line.split("\t");
+					if (parts.length != 4) continue;
+					try {
+						entries.put(parts[0], new Entry(Long.parseLong(parts[1]), Long.parseLong(parts[2]), parts[3]));
+						lines++;
+					} catch (NumberFormatException e) {
+						// skip malformed entry
+					}
+				}
+			}
+
+			// rewrite the cache without superseded entries if there are many of them
+			if (lines > entries.size() * 2L) compact(file, entries);
+		} else {
+			Path parent = file.toAbsolutePath().getParent();
+			if (!Files.isDirectory(parent)) Files.createDirectories(parent);
+		}
+
+		return new HashCache(file, entries, FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+	}
+
+	/**
+	 * Get the SHA-1 hash of a file, from the cache if the file is unchanged
+	 * since it was last hashed, otherwise by reading and hashing the file.
+	 *
+	 * @param path file to hash
+	 * @return lowercase hex SHA-1 hash
+	 * @throws IOException failed to read the file
+	 */
+	public String hash(Path path) throws IOException {
+		if (file == null) return Util.sha1(path);
+
+		final String key = path.toAbsolutePath().normalize().toString();
+		final BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+		final long size = attrs.size();
+		final long modified = attrs.lastModifiedTime().toMillis();
+
+		Entry entry = entries.get(key);
+		if (entry != null && entry.size == size && entry.modified == modified) return entry.hash;
+
+		final String hash = Util.sha1(path);
+
+		// paths which can't be represented in the cache file are simply not cached
+		if (key.indexOf('\t') >= 0 || key.indexOf('\n') >= 0) return hash;
+
+		entries.put(key, new Entry(size, modified, hash));
+		ByteBuffer line = StandardCharsets.UTF_8.encode(String.join("\t", key, Long.toString(size), Long.toString(modified), hash) + "\n");
+		synchronized (channel) {
+			while (line.hasRemaining()) channel.write(line);
+		}
+
+		return hash;
+	}
+
+	/**
+	 * @return number of cached hashes
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (channel != null) channel.close();
+	}
+
+	private static void compact(Path file, Map<String, Entry> entries) throws IOException {
+		Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+		try {
+			StringBuilder sb = new StringBuilder();
+			entries.forEach((k, v) -> sb.append(String.join("\t", k, Long.toString(v.size), Long.toString(v.modified), v.hash))
+										.append("\n"));
+			Files.writeString(tmp, sb, StandardCharsets.UTF_8);
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	private record Entry(long size, long modified, String hash) {}
+}
@@ -0,0 +1,133 @@
+package org.unrealarchive.common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * A file read from an archive into memory, rather than extracted to disk.
+ *
+ * @see ArchiveUtil#readInMemory(Path, long, java.util.Set)
+ */
+public class MemoryFile {
+
+	/**
+	 * Path of the file within its archive, using <code>/</code> separators.
+	 */
+	public final String name;
+	public final int size;
+	public final FileTime modified;
+
+	private final byte[] data;
+
+	MemoryFile(String name, byte[] data, FileTime modified) {
+		this.name = name;
+		this.size = data.length;
+		this.modified = modified;
+		this.data = data;
+	}
+
+	/**
+	 * @return a new read-only channel over the file's content
+	 */
+	public SeekableByteChannel read() {
+		return new Channel(data);
+	}
+
+	/**
+	 * @return lowercase hex SHA-1 hash of the file's content
+	 */
+	public String sha1() {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(data));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Write the file's content to disk, retaining its modification time.
+	 *
+	 * @param path file to write
+	 * @throws IOException failed to write the file
+	 */
+	public void write(Path path) throws IOException {
+		Files.write(path, data);
+		if (modified != null) Files.setLastModifiedTime(path, modified);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("MemoryFile [name=%s, size=%s]", name, size);
+	}
+
+	private static class Channel implements SeekableByteChannel {
+
+		private final byte[] data;
+		private long position;
+		private boolean open = true;
+
+		private Channel(byte[] data) {
+			this.data = data;
+		}
+
+		@Override
+		public int read(ByteBuffer dst) throws IOException {
+			if (!open) throw new ClosedChannelException();
+			if (position >= data.length) return -1;
+
+			final int count = (int)Math.min(dst.remaining(), data.length - position);
+			dst.put(data, (int)position, count);
+			position += count;
+			return count;
+		}
+
+		@Override
+		public int write(ByteBuffer src) {
+			throw new NonWritableChannelException();
+		}
+
+		@Override
+		public long position() throws IOException {
+			if (!open) throw new ClosedChannelException();
+			return position;
+		}
+
+		@Override
+		public SeekableByteChannel position(long newPosition) throws IOException {
+			if (!open) throw new ClosedChannelException();
+			if (newPosition < 0) throw new IllegalArgumentException("Negative position");
+			position = newPosition;
+			return this;
+		}
+
+		@Override
+		public long size() throws IOException {
+			if (!open) throw new ClosedChannelException();
+			return data.length;
+		}
+
+		@Override
+		public SeekableByteChannel truncate(long size) {
+			throw new NonWritableChannelException();
+		}
+
+		@Override
+		public boolean isOpen() {
+			return open;
+		}
+
+		@Override
+		public void close() {
+			open = false;
+		}
+	}
+}
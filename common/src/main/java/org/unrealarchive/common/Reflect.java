@@ -19,7 +19,16 @@ public class Reflect {
 	 * The results are cached for subsequent accesses.
 	 */
 	public static Map<String, Field> classLowercaseFields(Object thing) {
-		return typeFields.computeIfAbsent(thing.getClass(), a -> {
+		return classLowercaseFields(thing.getClass());
+	}
+
+	/**
+	 * Gets map of lowercase field names to fields for the type provided.
+	 * <p>
+	 * The results are cached for subsequent accesses.
+	 */
+	public static Map<String, Field> classLowercaseFields(Class<?> type) {
+		return typeFields.computeIfAbsent(type, a -> {
 			Field[] newFields = a.getFields();
 			Map<String, Field> classFields = new HashMap<>(newFields.length);
 			for (Field field : newFields) classFields.put(field.getName().toLowerCase(), field);
@@ -0,0 +1,443 @@
+package org.unrealarchive.common;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Extracts zip, gzip and tar archives in-process, streaming entries
+ * directly to disk, rather than starting an external tool.
+ * <p>
+ * Extraction behaves as closely as possible to the external tools used by
+ * {@link ArchiveUtil}: file modification times are preserved, paths which
+ * would escape the destination directory are made safe, and files which
+ * already exist are renamed rather than overwritten.
+ * <p>
+ * Archives which can not be read in-process, such as encrypted zip files
+ * or those using uncommon compression methods, result in an
+ * {@link IOException}, and any files already extracted are removed, so the
+ * caller may fall back to an external tool.
+ */
+class StreamExtractor {
+
+	static final Set<String> FORMATS = Set.of("zip", "gz", "tar");
+
+	// charset used for zip entry names not flagged as UTF-8, as per the zip specification
+	private static final Charset ZIP_CHARSET = Charset.isSupported("IBM437")
+		? Charset.forName("IBM437")
+		: StandardCharsets.ISO_8859_1;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int TAR_BLOCK = 512;
+
+	private final Path destination;
+	private final long deadline;
+	private final Path source;
+
+	// files and directories created, so they may be removed if extraction fails
+	private final List<Path> created = new ArrayList<>();
+
+	private StreamExtractor(Path source, Path destination, Duration timeout) {
+		this.source = source;
+		this.destination = destination;
+		this.deadline = System.nanoTime() + timeout.toNanos();
+	}
+
+	/**
+	 * Extract an archive.
+	 *
+	 * @param source      archive to extract
+	 * @param destination directory to extract to
+	 * @param timeout     maximum time to spend extracting
+	 * @return the destination directory
+	 * @throws IOException           the archive could not be extracted in-process
+	 * @throws IllegalStateException extraction took longer than the timeout
+	 */
+	static Path extract(Path source, Path destination, Duration timeout) throws IOException {
+		final StreamExtractor extractor = new StreamExtractor(source, destination, timeout);
+		try {
+			switch (Util.extension(source).toLowerCase()) {
+				case "zip" -> extractor.zip();
+				case "gz" -> extractor.gzip();
+				case "tar" -> {
+					try (InputStream in = new BufferedInputStream(Files.newInputStream(source), BUFFER_SIZE)) {
+						extractor.tar(in);
+					}
+				}
+				default -> throw new IOException("Unsupported archive format " + source);
+			}
+		} catch (IOException | RuntimeException e) {
+			extractor.cleanup();
+			// names which can not be decoded are reported as IllegalArgumentException by ZipFile
+			if (e instanceof IllegalArgumentException) throw new IOException("Failed to read archive " + source, e);
+			throw e;
+		}
+		return destination;
+	}
+
+	/**
+	 * Read all the files within a zip archive into memory.
+	 *
+	 * @param source    archive to read
+	 * @param maxSize   maximum total uncompressed size of files to read
+	 * @param skipTypes file extensions which may not be read into memory,
+	 *                  such as nested archives
+	 * @return files read, or null if the archive is too large, or contains a
+	 * file of one of the skipped types
+	 * @throws IOException the archive could not be read in-process
+	 */
+	static List<MemoryFile> readZip(Path source, long maxSize, Set<String> skipTypes) throws IOException {
+		try (ZipFile zip = new ZipFile(source.toFile(), ZIP_CHARSET)) {
+			// check sizes and types up-front, before reading anything
+			long total = 0;
+			for (Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements(); ) {
+				ZipEntry entry = entries.nextElement();
+				if (entry.isDirectory()) continue;
+				if (entry.getSize() < 0 || entry.getSize() > Integer.MAX_VALUE || skipTypes.contains(Util.extension(entry.getName()).toLowerCase())) return null;
+				total += entry.getSize();
+				if (total > maxSize) return null;
+			}
+
+			final Map<String, MemoryFile> files = new LinkedHashMap<>();
+			for (Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements(); ) {
+				ZipEntry entry = entries.nextElement();
+				String name = safeName(entry.getName());
+				if (entry.isDirectory() || name == null) continue;
+
+				// names which would need to be renamed on disk are left to regular extraction
+				if (files.containsKey(name)) return null;
+
+				final byte[] data;
+				try (InputStream in = zip.getInputStream(entry)) {
+					data = in.readNBytes((int)entry.getSize());
+				}
+				if (data.length != entry.getSize()) throw new IOException("Unexpected end of entry " + entry.getName());
+
+				files.put(name, new MemoryFile(name, data, entry.getLastModifiedTime()));
+			}
+			return List.copyOf(files.values());
+		} catch (IllegalArgumentException e) {
+			// names which can not be decoded are reported as IllegalArgumentException by ZipFile
+			throw new IOException("Failed to read archive " + source, e);
+		}
+	}
+
+	private void zip() throws IOException {
+		try (ZipFile zip = new ZipFile(source.toFile(), ZIP_CHARSET)) {
+			Enumeration<? extends ZipEntry> entries = zip.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				if (entry.isDirectory()) {
+					directory(entry.getName());
+				} else {
+					try (InputStream in = zip.getInputStream(entry)) {
+						file(entry.getName(), in, entry.getLastModifiedTime());
+					}
+				}
+			}
+		}
+	}
+
+	private void gzip() throws IOException {
+		// the original file's modification time is stored in the gzip header, if available
+		FileTime modified = null;
+		try (InputStream in = Files.newInputStream(source)) {
+			byte[] header = in.readNBytes(10);
+			if (header.length == 10) {
+				long mtime = (header[4] & 0xffL) | (header[5] & 0xffL) << 8 | (header[6] & 0xffL) << 16 | (header[7] & 0xffL) << 24;
+				if (mtime > 0) modified = FileTime.fromMillis(mtime * 1000);
+			}
+		}
+
+		String name = Util.fileName(source);
+		name = name.substring(0, name.lastIndexOf('.'));
+		if (name.isBlank()) name = "file";
+
+		try (InputStream in = new GZIPInputStream(Files.newInputStream(source), BUFFER_SIZE)) {
+			file(name, in, modified != null ? modified : Files.getLastModifiedTime(source));
+		}
+	}
+
+	private void tar(InputStream in) throws IOException {
+		final byte[] header = new byte[TAR_BLOCK];
+		String longName = null;
+		String paxName = null;
+
+		while (true) {
+			final int read = in.readNBytes(header, 0, TAR_BLOCK);
+			// some archives omit the trailing empty blocks
+			if (read == 0) break;
+			if (read < TAR_BLOCK) throw new IOException("Unexpected end of tar archive " + source);
+
+			// an empty block marks the end of the archive
+			if (isEmpty(header)) break;
+
+			if (tarChecksum(header) != tarNumber(header, 148, 8)) throw new IOException("Invalid tar header checksum in " + source);
+
+			final char type = (char)header[156];
+			final long size = tarNumber(header, 124, 12);
+			final long padding = (TAR_BLOCK - (size % TAR_BLOCK)) % TAR_BLOCK;
+
+			String name = tarString(header, 0, 100);
+			if (tarString(header, 257, 5).equals("ustar")) {
+				String prefix = tarString(header, 345, 155);
+				if (!prefix.isEmpty()) name = prefix + "/" + name;
+			}
+			if (paxName != null) name = paxName;
+			else if (longName != null) name = longName;
+
+			switch (type) {
+				case 'L' -> {
+					// GNU long name, applies to the following entry
+					longName = tarString(readBytes(in, size), 0, (int)size);
+					skip(in, padding);
+					continue;
+				}
+				case 'x' -> {
+					// pax extended header, applies to the following entry
+					paxName = paxPath(readBytes(in, size));
+					skip(in, padding);
+					continue;
+				}
+				case '0', '\0', '7' -> {
+					final FileTime modified = FileTime.fromMillis(tarNumber(header, 136, 12) * 1000);
+					final BoundedInputStream data = new BoundedInputStream(in, size);
+					file(name, data, modified);
+					// consume anything not read, such as for entries which were not extracted
+					skip(in, data.remaining);
+				}
+				case '5' -> {
+					directory(name);
+					skip(in, size);
+				}
+				// links, devices and other special entries are not extracted
+				default -> skip(in, size);
+			}
+
+			skip(in, padding);
+			longName = null;
+			paxName = null;
+		}
+	}
+
+	private void directory(String name) throws IOException {
+		Path dir = safePath(name);
+		if (dir != null) createDirectories(dir);
+	}
+
+	private void file(String name, InputStream in, FileTime modified) throws IOException {
+		Path target = safePath(name);
+		if (target == null) return;
+
+		createDirectories(target.getParent());
+		target = unique(target);
+
+		final byte[] buffer = new byte[BUFFER_SIZE];
+		try (OutputStream out = Files.newOutputStream(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+			created.add(target);
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				out.write(buffer, 0, read);
+				checkTimeout();
+			}
+		}
+
+		if (modified != null) Files.setLastModifiedTime(target, modified);
+	}
+
+	/**
+	 * Resolve an entry name within the destination directory.
+	 *
+	 * @return resolved path, or null if the name does not contain a usable path
+	 */
+	private Path safePath(String name) {
+		String safe = safeName(name);
+		return safe == null ? null : destination.resolve(safe);
+	}
+
+	/**
+	 * Make an entry name safe to resolve within a directory, discarding any
+	 * absolute, parent or empty path components.
+	 *
+	 * @return relative path using <code>/</code> separators, or null if the
+	 * name does not contain a usable path
+	 */
+	private static String safeName(String name) {
+		final StringBuilder result = new StringBuilder();
+		for (String part : name.replace('\\', '/').split("/")) {
+			if (part.isEmpty() || part.equals(".") || part.equals("..") || part.endsWith(":")) continue;
+			if (!result.isEmpty()) result.append('/');
+			result.append(part);
+		}
+		return result.isEmpty() ? null : result.toString();
+	}
+
+	/**
+	 * If the path already exists, find a new name in the form of `name_1.ext`,
+	 * as the external tools do when not overwriting files.
+	 */
+	private Path unique(Path path) {
+		if (!Files.exists(path)) return path;
+
+		final String name = path.getFileName().toString();
+		final int dot = name.lastIndexOf('.');
+		final String base = dot > 0 ? name.substring(0, dot) : name;
+		final String ext = dot > 0 ? name.substring(dot) : "";
+		for (int i = 1; ; i++) {
+			Path next = path.resolveSibling(base + "_" + i + ext);
+			if (!Files.exists(next)) return next;
+		}
+	}
+
+	private void createDirectories(Path dir) throws IOException {
+		if (Files.isDirectory(dir)) return;
+		if (!dir.equals(destination)) createDirectories(dir.getParent());
+		try {
+			Files.createDirectory(dir);
+			created.add(dir);
+		} catch (FileAlreadyExistsException e) {
+			if (!Files.isDirectory(dir)) throw e;
+		}
+	}
+
+	private void checkTimeout() {
+		if (System.nanoTime() > deadline) throw new IllegalStateException(String.format("Timed out unpacking file %s", source));
+	}
+
+	private void cleanup() {
+		// remove in reverse order, so files are removed before their directories
+		for (int i = created.size() - 1; i >= 0; i--) {
+			try {
+				Files.deleteIfExists(created.get(i));
+			} catch (IOException e) {
+				// pass - allow failure so we can continue safely
+			}
+		}
+		created.clear();
+	}
+
+	private static byte[] readBytes(InputStream in, long size) throws IOException {
+		if (size > Integer.MAX_VALUE) throw new IOException("Tar header entry too large");
+		byte[] bytes = in.readNBytes((int)size);
+		if (bytes.length < size) throw new IOException("Unexpected end of tar archive");
+		return bytes;
+	}
+
+	private static void skip(InputStream in, long count) throws IOException {
+		in.skipNBytes(count);
+	}
+
+	private static boolean isEmpty(byte[] block) {
+		for (byte b : block) {
+			if (b != 0) return false;
+		}
+		return true;
+	}
+
+	private static String tarString(byte[] bytes, int offset, int length) {
+		int end = offset;
+		while (end < offset + length && bytes[end] != 0) end++;
+		return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+	}
+
+	private static long tarNumber(byte[] bytes, int offset, int length) throws IOException {
+		// large values are stored as big-endian binary, flagged by the high bit of the first byte
+		if ((bytes[offset] & 0x80) != 0) {
+			long value = bytes[offset] & 0x7f;
+			for (int i = offset + 1; i < offset + length; i++) value = (value << 8) | (bytes[i] & 0xff);
+			return value;
+		}
+
+		String value = tarString(bytes, offset, length).trim();
+		if (value.isEmpty()) return 0;
+		try {
+			return Long.parseLong(value, 8);
+		} catch (NumberFormatException e) {
+			throw new IOException("Invalid tar header value " + value, e);
+		}
+	}
+
+	private static long tarChecksum(byte[] header) {
+		long sum = 0;
+		for (int i = 0; i < header.length; i++) {
+			// the checksum field itself is treated as spaces
+			sum += (i >= 148 && i < 156) ? ' ' : (header[i] & 0xff);
+		}
+		return sum;
+	}
+
+	private static String paxPath(byte[] data) {
+		// records are in the form "<length> <key>=<value>\n"
+		String path = null;
+		int pos = 0;
+		while (pos < data.length) {
+			int space = pos;
+			while (space < data.length && data[space] != ' ') space++;
+			if (space >= data.length) break;
+
+			int length;
+			try {
+				length = Integer.parseInt(new String(data, pos, space - pos, StandardCharsets.UTF_8));
+			} catch (NumberFormatException e) {
+				break;
+			}
+			if (length <= 0 || pos + length > data.length) break;
+
+			String record = new String(data, space + 1, pos + length - space - 2, StandardCharsets.UTF_8);
+			if (record.startsWith("path=")) path = record.substring("path=".length());
+			pos += length;
+		}
+		return path;
+	}
+
+	/**
+	 * Exposes a limited number of bytes from an underlying stream, without
+	 * closing it.
+	 */
+	private static class BoundedInputStream extends InputStream {
+
+		private final InputStream in;
+		private long remaining;
+
+		private BoundedInputStream(InputStream in, long size) {
+			this.in = in;
+			this.remaining = size;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (remaining <= 0) return -1;
+			int b = in.read();
+			if (b < 0) throw new IOException("Unexpected end of tar archive");
+			remaining--;
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (remaining <= 0) return -1;
+			int read = in.read(b, off, (int)Math.min(len, remaining));
+			if (read < 0) throw new IOException("Unexpected end of tar archive");
+			remaining -= read;
+			return read;
+		}
+	}
+}
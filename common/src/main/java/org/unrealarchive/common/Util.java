@@ -8,15 +8,11 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
 import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.text.Normalizer;
 import java.util.HashMap;
 import java.util.Locale;
@@ -29,8 +25,6 @@ import java.util.stream.Stream;
 
 public final class Util {
 
-	private static final char[] HEX_ARRAY = "0123456789ABCDEF".toCharArray();
-
 	private static final Map<String, String> MIME_TYPES = new HashMap<>() {{
 		put("bmp", "image/bmp");
 		put("bz", "application/x-bzip");
@@ -72,8 +66,6 @@ public final class Util {
 
 	private static final Pattern UC_WORDS = Pattern.compile("\\b(.)(.*?)\\b");
 
-	private static final int HASH_BUFFER_SIZE = 1024 * 50 * 10; // 512kb read buffer
-
 	private static final String USER_AGENT = "UnrealArchive/" + Version.version();
 
 	private Util() {}
@@ -139,43 +131,43 @@ public final class Util {
 		return IMGS.contains(extension(path).toLowerCase());
 	}
 
+	/**
+	 * Get the SHA-1 hash of a file.
+	 * <p>
+	 * A pre-computed hash is used if a sibling `.sha1` file exists, otherwise
+	 * the file is hashed.
+	 */
 	public static String hash(Path path) throws IOException {
+		return hash(path, HashCache.NONE);
+	}
+
+	/**
+	 * Get the SHA-1 hash of a file.
+	 * <p>
+	 * A pre-computed hash is used if a sibling `.sha1` file exists, otherwise
+	 * the hash is provided by the given cache.
+	 */
+	public static String hash(Path path, HashCache cache) throws IOException {
 		Path hashPath = path.resolveSibling(path.getFileName().toString() + ".sha1");
 		if (Files.exists(hashPath)) {
 			return Files.readString(hashPath).trim();
 		}
 
-		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
-			MessageDigest md = MessageDigest.getInstance("SHA-1");
-
-			ByteBuffer buffer = ByteBuffer.allocate(HASH_BUFFER_SIZE);
-
-			while (channel.read(buffer) > 0) {
-				buffer.flip();
-				md.update(buffer);
-				buffer.clear();
-			}
+		return cache.hash(path);
+	}
 
-			return bytesToHex(md.digest()).toLowerCase();
-		} catch (NoSuchAlgorithmException e) {
-			throw new IllegalArgumentException(e);
-		}
+	/**
+	 * Compute the SHA-1 hash of a file's content, without using any cached
+	 * or pre-computed hash.
+	 */
+	public static String sha1(Path path) throws IOException {
+		return FileDigest.digest(path, FileDigest.Algorithm.SHA1).hex(FileDigest.Algorithm.SHA1);
 	}
 
 	public static String mimeType(String ext) {
 		return MIME_TYPES.getOrDefault(ext, "application/octet-stream");
 	}
 
-	private static String bytesToHex(byte[] bytes) {
-		char[] hexChars = new char[bytes.length * 2];
-		for (int i = 0; i < bytes.length; i++) {
-			int v = bytes[i] & 0xFF;
-			hexChars[i * 2] = HEX_ARRAY[v >>> 4];
-			hexChars[i * 2 + 1] = HEX_ARRAY[v & 0x0F];
-		}
-		return new String(hexChars);
-	}
-
 	public static URI toUri(String s) {
 		try {
 			URL url = new URL(s);
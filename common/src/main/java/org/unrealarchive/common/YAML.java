@@ -21,6 +21,7 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
@@ -56,6 +57,21 @@ public class YAML {
 		return MAPPER.writeValueAsString(object);
 	}
 
+	/**
+	 * Create a deep copy of an object.
+	 * <p>
+	 * The result is the same as writing the object to YAML and reading it
+	 * back, but the intermediate representation is a token buffer, so no
+	 * YAML text is produced or parsed.
+	 */
+	public static <T> T copy(Object object, Class<T> type) throws IOException {
+		TokenBuffer buffer = new TokenBuffer(MAPPER, false);
+		MAPPER.writeValue(buffer, object);
+		try (JsonParser parser = buffer.asParser(MAPPER)) {
+			return MAPPER.readValue(parser, type);
+		}
+	}
+
 	public static <T> T fromFile(Path path, Class<T> type) throws IOException {
 		try {
 			return MAPPER.readValue(Files.newInputStream(path), type);
@@ -5,6 +5,8 @@ module unreal.archive.content {
 	requires unreal.archive.common;
 
 	requires com.fasterxml.jackson.annotation;
+	requires com.fasterxml.jackson.core;
+	requires com.fasterxml.jackson.databind;
 
 	exports org.unrealarchive.content;
 	exports org.unrealarchive.content.addons;
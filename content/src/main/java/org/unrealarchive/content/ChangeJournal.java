@@ -0,0 +1,129 @@
+package org.unrealarchive.content;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An append-only journal of changes made to content.
+ * <p>
+ * Each change is written as a single tab-separated line, containing the
+ * time of the change, the operation performed, the type of content and the
+ * content's identifier.
+ * <p>
+ * Consumers may read changes from a previously recorded position within
+ * the journal, allowing incremental processing of only the content which
+ * has changed since they last ran.
+ */
+public class ChangeJournal {
+
+	/**
+	 * A journal which discards all changes.
+	 */
+	public static final ChangeJournal NONE = new ChangeJournal(null);
+
+	public enum Operation {
+		ADD,
+		UPDATE,
+		DELETE
+	}
+
+	/**
+	 * A single journal entry.
+	 *
+	 * @param timestamp time the change was recorded
+	 * @param operation change operation
+	 * @param type      type of content changed, eg. "Map", "GameType", "Managed"
+	 * @param id        content identifier; hash for addons, or path for other content
+	 */
+	public record Change(Instant timestamp, Operation operation, String type, String id) {}
+
+	/**
+	 * The result of reading a journal.
+	 *
+	 * @param changes  changes read
+	 * @param position position following the last change read, which may be
+	 *                 used to continue reading later
+	 */
+	public record Changes(List<Change> changes, long position) {}
+
+	private final Path journal;
+
+	public ChangeJournal(Path journal) {
+		this.journal = journal;
+	}
+
+	/**
+	 * Record a change to content.
+	 *
+	 * @param operation change operation
+	 * @param entity    content changed
+	 * @param id        content identifier
+	 * @throws IOException failed to write to the journal
+	 */
+	public void record(Operation operation, ContentEntity<?> entity, String id) throws IOException {
+		if (journal == null) return;
+
+		String line = String.join("\t", Instant.now().toString(), operation.name(), entity.getClass().getSimpleName(),
+								  id.replaceAll("[\t\n]", " ")) + "\n";
+
+		synchronized (this) {
+			Files.writeString(journal, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		}
+	}
+
+	/**
+	 * Read all changes recorded since the position provided.
+	 * <p>
+	 * An incomplete trailing entry, such as one still being written, is not
+	 * returned, and will be read on a subsequent call.
+	 *
+	 * @param position position to read from, 0 to read from the start
+	 * @return changes, and the position to continue reading from next time
+	 * @throws IOException failed to read the journal
+	 */
+	public Changes since(long position) throws IOException {
+		if (journal == null || !Files.exists(journal)) return new Changes(List.of(), position);
+
+		final List<Change> changes = new ArrayList<>();
+		long end = position;
+		try (SeekableByteChannel channel = Files.newByteChannel(journal, StandardOpenOption.READ)) {
+			if (position > channel.size()) {
+				throw new IllegalArgumentException("Position " + position + " is beyond the end of the journal");
+			}
+			channel.position(position);
+
+			// read line by line, only advancing past complete lines
+			final InputStream in = new BufferedInputStream(Channels.newInputStream(channel));
+			final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+			long offset = position;
+			int b;
+			while ((b = in.read()) >= 0) {
+				offset++;
+				if (b != '\n') {
+					line.write(b);
+					continue;
+				}
+
+				String[] parts = line.toString(StandardCharsets.UTF_8).split("\t", 4);
+				if (parts.length == 4) {
+					changes.add(new Change(Instant.parse(parts[0]), Operation.valueOf(parts[1]), parts[2], parts[3]));
+				}
+				line.reset();
+				end = offset;
+			}
+		}
+
+		return new Changes(changes, end);
+	}
+}
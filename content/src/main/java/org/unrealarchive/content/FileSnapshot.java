@@ -0,0 +1,147 @@
+package org.unrealarchive.content;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A binary file of values derived from the YAML files within a repository,
+ * used to avoid re-reading unchanged files when a repository is loaded.
+ * <p>
+ * Each value is stored along with the path, modification time and size of
+ * the file it was read from, so values for files which have changed since
+ * the snapshot was written can be identified and re-read from source.
+ * <p>
+ * Snapshot files start with a magic number and format version identifying
+ * the kind of values they hold; a file of any other kind or version is
+ * ignored.
+ *
+ * @param <T> type of value held
+ */
+public class FileSnapshot<T> {
+
+	private static final int BUFFER_SIZE = 1024 * 1024;
+
+	private final String kind;
+	private final int magic;
+	private final int version;
+	private final ValueReader<T> reader;
+	private final ValueWriter<T> writer;
+
+	/**
+	 * @param kind    description of the snapshot, used when reporting problems
+	 * @param magic   number identifying the kind of snapshot
+	 * @param version version of the value format
+	 * @param reader  reads a single value
+	 * @param writer  writes a single value
+	 */
+	public FileSnapshot(String kind, int magic, int version, ValueReader<T> reader, ValueWriter<T> writer) {
+		this.kind = kind;
+		this.magic = magic;
+		this.version = version;
+		this.reader = reader;
+		this.writer = writer;
+	}
+
+	/**
+	 * Read all entries from a snapshot file.
+	 * <p>
+	 * A snapshot which does not exist, or which can not be read for any
+	 * reason, results in an empty collection, as it's expected that in those
+	 * cases all values will simply be re-read from source.
+	 *
+	 * @param snapshot snapshot file
+	 * @param root     root path, which snapshot paths are relative to
+	 * @return snapshot entries, keyed by source file path
+	 */
+	public Map<Path, Entry<T>> read(Path snapshot, Path root) {
+		if (!Files.isRegularFile(snapshot)) return Map.of();
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot), BUFFER_SIZE))) {
+			if (in.readInt() != magic || in.readInt() != version) return Map.of();
+
+			final int count = in.readInt();
+			final Map<Path, Entry<T>> entries = new HashMap<>(count);
+			for (int i = 0; i < count; i++) {
+				Path path = root.resolve(in.readUTF());
+				long modified = in.readLong();
+				long size = in.readLong();
+				entries.put(path, new Entry<>(path, modified, size, reader.read(in)));
+			}
+			return entries;
+		} catch (IOException e) {
+			System.err.printf("Ignoring unreadable %s %s: %s%n", kind, snapshot, e);
+			return Map.of();
+		}
+	}
+
+	/**
+	 * Write a new snapshot file.
+	 * <p>
+	 * The snapshot is written to a temporary file first, and then moved into
+	 * place, so a failed write does not leave a partial snapshot behind.
+	 *
+	 * @param snapshot snapshot file
+	 * @param root     root path, which snapshot paths are relative to
+	 * @param entries  entries to write
+	 * @throws IOException failed to write the snapshot
+	 */
+	public void write(Path snapshot, Path root, Collection<Entry<T>> entries) throws IOException {
+		Path parent = snapshot.toAbsolutePath().getParent();
+		if (!Files.isDirectory(parent)) Files.createDirectories(parent);
+
+		Path tmp = Files.createTempFile(parent, snapshot.getFileName().toString(), ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), BUFFER_SIZE))) {
+				out.writeInt(magic);
+				out.writeInt(version);
+				out.writeInt(entries.size());
+				for (Entry<T> e : entries) {
+					out.writeUTF(root.relativize(e.path).toString());
+					out.writeLong(e.modified);
+					out.writeLong(e.size);
+					writer.write(out, e.value);
+				}
+			}
+			Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	@FunctionalInterface
+	public interface ValueReader<T> {
+
+		T read(DataInputStream in) throws IOException;
+	}
+
+	@FunctionalInterface
+	public interface ValueWriter<T> {
+
+		void write(DataOutputStream out, T value) throws IOException;
+	}
+
+	/**
+	 * A single snapshot record.
+	 *
+	 * @param path     file the value was read from
+	 * @param modified modification time of the file, in milliseconds
+	 * @param size     size of the file
+	 * @param value    value read from the file
+	 * @param <T>      type of value
+	 */
+	public record Entry<T>(Path path, long modified, long size, T value) {
+
+		public boolean matches(long modified, long size) {
+			return this.modified == modified && this.size == size;
+		}
+	}
+}
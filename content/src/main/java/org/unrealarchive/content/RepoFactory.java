@@ -1,17 +1,26 @@
 package org.unrealarchive.content;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Stream;
 
 import org.unrealarchive.common.ArchiveUtil;
 import org.unrealarchive.common.CLI;
 import org.unrealarchive.common.Util;
+import org.unrealarchive.content.addons.AddonCache;
+import org.unrealarchive.content.addons.AddonCompactor;
 import org.unrealarchive.content.addons.GameTypeRepository;
 import org.unrealarchive.content.addons.SimpleAddonRepository;
 import org.unrealarchive.content.docs.DocumentRepository;
@@ -31,58 +40,207 @@ public class RepoFactory {
 	private static final String CONTENT_URL = System.getenv().getOrDefault("UA_CONTENT_URL",
 																		   "https://github.com/unreal-archive/unreal-archive-data/archive/master.zip");
 
-	public static SimpleAddonRepository contentRepo(CLI cli) throws IOException {
-		Path contentPath = contentPathHelper(cli);
+	/**
+	 * Repositories which may be loaded via {@link #bootstrap(CLI, Repo...)}.
+	 */
+	public enum Repo {
+		CONTENT,
+		GAMETYPES,
+		DOCUMENTS,
+		MANAGED,
+		WIKIS
+	}
+
+	/**
+	 * A set of repositories loaded together by {@link #bootstrap(CLI, Repo...)}.
+	 */
+	public static class Repositories {
+
+		private final EnumMap<Repo, Object> repos;
+
+		private Repositories(EnumMap<Repo, Object> repos) {
+			this.repos = repos;
+		}
+
+		public SimpleAddonRepository content() {
+			return get(Repo.CONTENT, SimpleAddonRepository.class);
+		}
+
+		public GameTypeRepository gameTypes() {
+			return get(Repo.GAMETYPES, GameTypeRepository.class);
+		}
+
+		public DocumentRepository documents() {
+			return get(Repo.DOCUMENTS, DocumentRepository.class);
+		}
+
+		public ManagedContentRepository managed() {
+			return get(Repo.MANAGED, ManagedContentRepository.class);
+		}
+
+		public WikiRepository wikis() {
+			return get(Repo.WIKIS, WikiRepository.class);
+		}
+
+		private <T> T get(Repo repo, Class<T> type) {
+			Object loaded = repos.get(repo);
+			if (loaded == null) throw new IllegalStateException(String.format("Repository %s was not loaded", repo));
+			return type.cast(loaded);
+		}
+	}
 
+	/**
+	 * Load several repositories concurrently.
+	 * <p>
+	 * All repositories, and the parsing of their individual content files,
+	 * share a single pool of worker threads, bounded by the
+	 * `--load-concurrency` option, which defaults to the number of available
+	 * processors.
+	 *
+	 * @param cli   command line options
+	 * @param repos repositories to load
+	 * @return the loaded repositories
+	 * @throws IOException failed to load a repository
+	 */
+	public static Repositories bootstrap(CLI cli, Repo... repos) throws IOException {
+		// resolve the content path up-front, since it may need to be downloaded first
+		final Path contentPath = contentPathHelper(cli);
+		final int concurrency = Integer.parseInt(cli.option("load-concurrency",
+															Integer.toString(Runtime.getRuntime().availableProcessors())));
+
+		final Map<Repo, Loaded<?>> loaded = new ConcurrentHashMap<>();
 		final long start = System.currentTimeMillis();
-		final SimpleAddonRepository repo = new SimpleAddonRepository.FileRepository(contentPath.resolve(CONTENT_DIR));
-		final double gigs = (repo.fileSize() / 1024d / 1024d / 1024d);
-		System.err.printf("Loaded content index with %d items (%.2fGB) in %.2fs%n",
-						  repo.size(), gigs, (System.currentTimeMillis() - start) / 1000f);
 
-		return repo;
+		// parallel streams used while loading each repository will also run within this pool
+		final ForkJoinPool pool = new ForkJoinPool(concurrency);
+		try {
+			pool.submit(() -> Arrays.stream(repos).distinct().parallel().forEach(r -> {
+				try {
+					loaded.put(r, load(r, contentPath, cli));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			})).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while loading repositories", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof UncheckedIOException io) throw io.getCause();
+			if (e.getCause() instanceof RuntimeException re) throw re;
+			throw new IOException("Failed to load repositories", e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+
+		final EnumMap<Repo, Object> result = new EnumMap<>(Repo.class);
+		System.err.printf("Loaded %d repositories in %.2fs%n", loaded.size(), (System.currentTimeMillis() - start) / 1000f);
+		for (Repo r : Repo.values()) {
+			Loaded<?> l = loaded.get(r);
+			if (l == null) continue;
+			System.err.printf(" - %s%n", l);
+			result.put(r, l.repo());
+		}
+
+		return new Repositories(result);
+	}
+
+	public static SimpleAddonRepository contentRepo(CLI cli) throws IOException {
+		return report(loadContent(contentPathHelper(cli), cli));
 	}
 
 	public static GameTypeRepository gameTypeRepo(CLI cli) throws IOException {
-		Path contentPath = contentPathHelper(cli);
-		final long start = System.currentTimeMillis();
-		final GameTypeRepository repo = new GameTypeRepository.FileRepository(contentPath.resolve(GAMETYPES_DIR));
-		System.err.printf("Loaded gametypes index with %d items in %.2fs%n",
-						  repo.size(), (System.currentTimeMillis() - start) / 1000f);
-		return repo;
+		return report(loadGameTypes(contentPathHelper(cli)));
 	}
 
 	public static DocumentRepository documentRepo(CLI cli) throws IOException {
-		Path contentPath = contentPathHelper(cli);
+		return report(loadDocuments(contentPathHelper(cli)));
+	}
+
+	public static ManagedContentRepository managedRepo(CLI cli) throws IOException {
+		return report(loadManaged(contentPathHelper(cli)));
+	}
+
+	public static WikiRepository wikiRepo(CLI cli) throws IOException {
+		return report(loadWikis(contentPathHelper(cli), cli));
+	}
+
+	private static Loaded<?> load(Repo repo, Path contentPath, CLI cli) throws IOException {
+		return switch (repo) {
+			case CONTENT -> loadContent(contentPath, cli);
+			case GAMETYPES -> loadGameTypes(contentPath);
+			case DOCUMENTS -> loadDocuments(contentPath);
+			case MANAGED -> loadManaged(contentPath);
+			case WIKIS -> loadWikis(contentPath, cli);
+		};
+	}
+
+	private static Loaded<SimpleAddonRepository> loadContent(Path contentPath, CLI cli) throws IOException {
+		// optional binary snapshot of the content index, to avoid parsing all YAML files on every run
+		final Path snapshotPath = cli.option("content-snapshot", null) != null
+			? Paths.get(cli.option("content-snapshot", null)).toAbsolutePath()
+			: null;
+
+		// optionally bound the number of full content records held in memory
+		final AddonCache cache = cli.option("content-cache", null) != null
+			? AddonCache.lru(Integer.parseInt(cli.option("content-cache", null)))
+			: AddonCache.soft();
+
+		// optionally de-duplicate common values in loaded content, to reduce memory use
+		final AddonCompactor compactor = cli.flag("content-compact") ? new AddonCompactor() : null;
 
 		final long start = System.currentTimeMillis();
-		final DocumentRepository repo = new DocumentRepository.FileRepository(contentPath.resolve(DOCUMENTS_DIR));
-		System.err.printf("Loaded document index with %d items in %.2fs%n",
-						  repo.size(), (System.currentTimeMillis() - start) / 1000f);
+		final SimpleAddonRepository repo = new SimpleAddonRepository.FileRepository(
+			contentPath.resolve(CONTENT_DIR), snapshotPath, cache, compactor
+		);
+		final double gigs = (repo.fileSize() / 1024d / 1024d / 1024d);
+		if (compactor != null) {
+			System.err.printf("Compacted content index, saving approximately %.2fMB%n",
+							  compactor.savedBytes() / 1024d / 1024d);
+		}
 
-		return repo;
+		return new Loaded<>("content", repo, String.format("%d items (%.2fGB)", repo.size(), gigs), System.currentTimeMillis() - start);
 	}
 
-	public static ManagedContentRepository managedRepo(CLI cli) throws IOException {
-		Path contentPath = contentPathHelper(cli);
+	private static Loaded<GameTypeRepository> loadGameTypes(Path contentPath) throws IOException {
+		final long start = System.currentTimeMillis();
+		final GameTypeRepository repo = new GameTypeRepository.FileRepository(contentPath.resolve(GAMETYPES_DIR));
+		return new Loaded<>("gametypes", repo, String.format("%d items", repo.size()), System.currentTimeMillis() - start);
+	}
 
+	private static Loaded<DocumentRepository> loadDocuments(Path contentPath) throws IOException {
 		final long start = System.currentTimeMillis();
-		ManagedContentRepository managedContentManager = new ManagedContentRepository.FileRepository(contentPath.resolve(MANAGED_DIR));
-		System.err.printf("Loaded managed content index with %d items in %.2fs%n",
-						  managedContentManager.size(), (System.currentTimeMillis() - start) / 1000f);
+		final DocumentRepository repo = new DocumentRepository.FileRepository(contentPath.resolve(DOCUMENTS_DIR));
+		return new Loaded<>("document", repo, String.format("%d items", repo.size()), System.currentTimeMillis() - start);
+	}
 
-		return managedContentManager;
+	private static Loaded<ManagedContentRepository> loadManaged(Path contentPath) throws IOException {
+		final long start = System.currentTimeMillis();
+		final ManagedContentRepository repo = new ManagedContentRepository.FileRepository(contentPath.resolve(MANAGED_DIR));
+		return new Loaded<>("managed content", repo, String.format("%d items", repo.size()), System.currentTimeMillis() - start);
 	}
 
-	public static WikiRepository wikiRepo(CLI cli) throws IOException {
-		Path contentPath = contentPathHelper(cli);
+	private static Loaded<WikiRepository> loadWikis(Path contentPath, CLI cli) throws IOException {
+		// optional directory of wiki page indexes, to avoid parsing all page YAML files on every run
+		final Path indexPath = cli.option("wiki-index", null) != null
+			? Paths.get(cli.option("wiki-index", null)).toAbsolutePath()
+			: null;
 
 		final long start = System.currentTimeMillis();
-		final WikiRepository wikis = new WikiRepository.FileRepository(contentPath.resolve(WIKIS_DIR));
-		System.err.printf("Loaded wikis index with %d pages in %.2fs%n",
-						  wikis.size(), (System.currentTimeMillis() - start) / 1000f);
+		final WikiRepository repo = new WikiRepository.FileRepository(contentPath.resolve(WIKIS_DIR), indexPath);
+		return new Loaded<>("wikis", repo, String.format("%d pages", repo.size()), System.currentTimeMillis() - start);
+	}
 
-		return wikis;
+	private static <T> T report(Loaded<T> loaded) {
+		System.err.printf("Loaded %s%n", loaded);
+		return loaded.repo();
+	}
+
+	private record Loaded<T>(String name, T repo, String summary, long millis) {
+
+		@Override
+		public String toString() {
+			return String.format("%s index with %s in %.2fs", name, summary, millis / 1000f);
+		}
 	}
 
 	public static Path contentPathHelper(CLI cli) throws IOException {
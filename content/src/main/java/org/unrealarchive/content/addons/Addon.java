@@ -272,9 +272,9 @@ public abstract class Addon implements ContentEntity<Addon> {
 
 	public static class ContentFile implements Comparable<ContentFile> {
 
-		public String name;
-		public int fileSize;
-		public String hash;
+		public final String name;
+		public final int fileSize;
+		public final String hash;
 
 		@ConstructorProperties({ "name", "fileSize", "hash" })
 		public ContentFile(String name, int fileSize, String hash) {
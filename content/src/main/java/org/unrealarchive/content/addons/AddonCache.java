@@ -0,0 +1,228 @@
+package org.unrealarchive.content.addons;
+
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A cache of fully loaded addon records, keyed by content hash.
+ * <p>
+ * Repositories may hold only lightweight summaries of the content they
+ * manage, and use a cache to retain full records which are likely to be
+ * used again, re-reading them from storage on a cache miss.
+ */
+public interface AddonCache {
+
+	/**
+	 * Get a cached addon.
+	 *
+	 * @param hash content hash
+	 * @return the cached addon, or null if not cached
+	 */
+	public Addon get(String hash);
+
+	/**
+	 * Add an addon to the cache, replacing any existing entry.
+	 *
+	 * @param hash  content hash
+	 * @param addon addon to cache
+	 */
+	public void put(String hash, Addon addon);
+
+	/**
+	 * Remove an addon from the cache.
+	 *
+	 * @param hash content hash
+	 */
+	public void remove(String hash);
+
+	/**
+	 * @return cache statistics
+	 */
+	public Stats stats();
+
+	/**
+	 * A cache which holds addons via soft references, allowing them to be
+	 * reclaimed by the garbage collector as needed.
+	 * <p>
+	 * This cache is unbounded, and will retain everything while there is no
+	 * memory pressure.
+	 */
+	public static AddonCache soft() {
+		return new SoftCache();
+	}
+
+	/**
+	 * A cache which holds up to a fixed number of addons, evicting the least
+	 * recently used when full.
+	 *
+	 * @param maxEntries maximum number of addons to hold
+	 */
+	public static AddonCache lru(int maxEntries) {
+		return new LRUCache(maxEntries);
+	}
+
+	/**
+	 * Cache statistics.
+	 *
+	 * @param hits     number of lookups which returned a cached addon
+	 * @param misses   number of lookups which did not return a cached addon
+	 * @param reloads  number of misses for addons which had previously been
+	 *                 cached, and had since been evicted or reclaimed
+	 * @param size     current number of cached addons
+	 * @param capacity maximum number of cached addons, or -1 if unbounded
+	 */
+	public record Stats(long hits, long misses, long reloads, int size, int capacity) {
+
+		@Override
+		public String toString() {
+			return String.format("%d hits, %d misses, %d reloads, %d/%s entries",
+								 hits, misses, reloads, size, capacity < 0 ? "unbounded" : Integer.toString(capacity));
+		}
+	}
+
+	static class SoftCache implements AddonCache {
+
+		private final Map<String, SoftReference<Addon>> cache = new ConcurrentHashMap<>();
+
+		private final LongAdder hits = new LongAdder();
+		private final LongAdder misses = new LongAdder();
+		private final LongAdder reloads = new LongAdder();
+
+		@Override
+		public Addon get(String hash) {
+			SoftReference<Addon> ref = cache.get(hash);
+			Addon addon = ref == null ? null : ref.get();
+			if (addon != null) {
+				hits.increment();
+			} else {
+				misses.increment();
+				if (ref != null) reloads.increment();
+			}
+			return addon;
+		}
+
+		@Override
+		public void put(String hash, Addon addon) {
+			cache.put(hash, new SoftReference<>(addon));
+		}
+
+		@Override
+		public void remove(String hash) {
+			cache.remove(hash);
+		}
+
+		@Override
+		public Stats stats() {
+			return new Stats(hits.sum(), misses.sum(), reloads.sum(), cache.size(), -1);
+		}
+	}
+
+	/**
+	 * An LRU cache split into independently locked segments by hash, so that
+	 * concurrent readers of different addons do not contend on a single lock.
+	 * Small caches use a single segment, and so are strictly LRU.
+	 * <p>
+	 * Reloads are detected via a "ghost" list of recently evicted hashes per
+	 * segment, bounded to the segment's capacity, so only reloads of addons
+	 * evicted relatively recently are counted.
+	 */
+	static class LRUCache implements AddonCache {
+
+		private static final int MAX_SEGMENTS = 16;
+		private static final int MIN_SEGMENT_SIZE = 64;
+
+		private final int maxEntries;
+		private final Segment[] segments;
+
+		private final LongAdder hits = new LongAdder();
+		private final LongAdder misses = new LongAdder();
+		private final LongAdder reloads = new LongAdder();
+
+		public LRUCache(int maxEntries) {
+			if (maxEntries < 1) throw new IllegalArgumentException("Cache size must be at least 1");
+
+			this.maxEntries = maxEntries;
+			this.segments = new Segment[Math.max(1, Math.min(MAX_SEGMENTS, maxEntries / MIN_SEGMENT_SIZE))];
+			for (int i = 0; i < segments.length; i++) {
+				segments[i] = new Segment(maxEntries / segments.length + (i < maxEntries % segments.length ? 1 : 0));
+			}
+		}
+
+		private Segment segment(String hash) {
+			return segments[Math.floorMod(hash.hashCode(), segments.length)];
+		}
+
+		@Override
+		public Addon get(String hash) {
+			Segment segment = segment(hash);
+			synchronized (segment) {
+				Addon addon = segment.cache.get(hash);
+				if (addon != null) {
+					hits.increment();
+				} else {
+					misses.increment();
+					if (segment.evicted.remove(hash)) reloads.increment();
+				}
+				return addon;
+			}
+		}
+
+		@Override
+		public void put(String hash, Addon addon) {
+			Segment segment = segment(hash);
+			synchronized (segment) {
+				segment.cache.put(hash, addon);
+				segment.evicted.remove(hash);
+			}
+		}
+
+		@Override
+		public void remove(String hash) {
+			Segment segment = segment(hash);
+			synchronized (segment) {
+				segment.cache.remove(hash);
+				segment.evicted.remove(hash);
+			}
+		}
+
+		@Override
+		public Stats stats() {
+			int size = 0;
+			for (Segment segment : segments) {
+				synchronized (segment) {
+					size += segment.cache.size();
+				}
+			}
+			return new Stats(hits.sum(), misses.sum(), reloads.sum(), size, maxEntries);
+		}
+
+		private static class Segment {
+
+			private final LinkedHashMap<String, Addon> cache;
+			private final LinkedHashSet<String> evicted = new LinkedHashSet<>();
+
+			private Segment(int capacity) {
+				this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+					@Override
+					protected boolean removeEldestEntry(Map.Entry<String, Addon> eldest) {
+						if (size() <= capacity) return false;
+
+						// remember recent evictions, only as many as the segment may hold
+						evicted.add(eldest.getKey());
+						if (evicted.size() > capacity) {
+							Iterator<String> oldest = evicted.iterator();
+							oldest.next();
+							oldest.remove();
+						}
+						return true;
+					}
+				};
+			}
+		}
+	}
+}
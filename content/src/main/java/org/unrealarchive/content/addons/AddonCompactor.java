@@ -0,0 +1,123 @@
+package org.unrealarchive.content.addons;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reduces the memory footprint of loaded addons, by sharing the many
+ * identical values which appear across the content in a repository.
+ * <p>
+ * Repetitive strings such as game names, content types and author names
+ * are de-duplicated, as are {@link Addon.ContentFile} and
+ * {@link Addon.Dependency} instances, which are frequently shared by
+ * many addons.
+ * <p>
+ * Compaction is applied in-place, and does not change the content of an
+ * addon in any way. Only immutable values are shared between addons.
+ */
+public class AddonCompactor {
+
+	// rough approximations of object sizes on a 64-bit JVM with compressed oops
+	private static final int STRING_OVERHEAD = 40;
+	private static final int OBJECT_OVERHEAD = 24;
+
+	private final java.util.Map<String, String> strings = new ConcurrentHashMap<>();
+	private final java.util.Map<FileKey, Addon.ContentFile> files = new ConcurrentHashMap<>();
+	private final java.util.Map<Addon.Dependency, Addon.Dependency> dependencies = new ConcurrentHashMap<>();
+
+	private final LongAdder saved = new LongAdder();
+
+	/**
+	 * Compact the addon provided.
+	 *
+	 * @param addon addon to compact
+	 * @return the same addon
+	 */
+	public Addon compact(Addon addon) {
+		addon.contentType = intern(addon.contentType);
+		addon.game = intern(addon.game);
+		addon.author = intern(addon.author);
+		addon.releaseDate = intern(addon.releaseDate);
+
+		if (addon.files instanceof ArrayList<Addon.ContentFile> list) list.trimToSize();
+		addon.files.replaceAll(this::file);
+
+		if (!addon.dependencies.isEmpty()) {
+			java.util.Map<String, List<Addon.Dependency>> deps = new LinkedHashMap<>(addon.dependencies.size());
+			addon.dependencies.forEach((k, v) -> {
+				if (v instanceof ArrayList<Addon.Dependency> list) list.trimToSize();
+				v.replaceAll(this::dependency);
+				deps.put(intern(k), v);
+			});
+			addon.dependencies = deps;
+		}
+
+		if (addon instanceof Map map) {
+			map.gametype = intern(map.gametype);
+			map.playerCount = intern(map.playerCount);
+			map.themes = internKeys(map.themes);
+		} else if (addon instanceof MapPack pack) {
+			pack.gametype = intern(pack.gametype);
+			pack.themes = internKeys(pack.themes);
+		} else if (addon instanceof Skin skin) {
+			skin.model = intern(skin.model);
+		}
+
+		return addon;
+	}
+
+	/**
+	 * @return approximate number of bytes of heap saved by compaction
+	 */
+	public long savedBytes() {
+		return saved.sum();
+	}
+
+	private String intern(String value) {
+		if (value == null) return null;
+
+		String existing = strings.putIfAbsent(value, value);
+		if (existing == null) return value;
+		if (existing != value) saved.add(STRING_OVERHEAD + value.length());
+		return existing;
+	}
+
+	private <V> java.util.Map<String, V> internKeys(java.util.Map<String, V> map) {
+		if (map == null || map.isEmpty()) return map;
+
+		java.util.Map<String, V> result = new LinkedHashMap<>(map.size());
+		map.forEach((k, v) -> result.put(intern(k), v));
+		return result;
+	}
+
+	private Addon.ContentFile file(Addon.ContentFile file) {
+		final FileKey key = new FileKey(file.name, file.fileSize, file.hash);
+		Addon.ContentFile existing = files.get(key);
+		if (existing == null) {
+			// content files are immutable, so a copy with interned strings is shared
+			Addon.ContentFile interned = new Addon.ContentFile(intern(file.name), file.fileSize, intern(file.hash));
+			existing = files.putIfAbsent(key, interned);
+			if (existing == null) return interned;
+		}
+		if (existing != file) {
+			saved.add(OBJECT_OVERHEAD + (2L * STRING_OVERHEAD) + file.name.length() + file.hash.length());
+		}
+		return existing;
+	}
+
+	private Addon.Dependency dependency(Addon.Dependency dependency) {
+		Addon.Dependency existing = dependencies.putIfAbsent(dependency, dependency);
+		if (existing == null) return dependency;
+		if (existing != dependency) saved.add(OBJECT_OVERHEAD);
+		return existing;
+	}
+
+	/**
+	 * Exact identity of a content file. {@link Addon.ContentFile#equals(Object)}
+	 * ignores name casing and file size, so is not suitable for sharing instances.
+	 */
+	private record FileKey(String name, int fileSize, String hash) {}
+}
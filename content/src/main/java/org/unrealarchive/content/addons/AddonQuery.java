@@ -0,0 +1,187 @@
+package org.unrealarchive.content.addons;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import org.unrealarchive.common.Reflect;
+
+/**
+ * A compiled representation of a set of key/value content filters, as
+ * accepted by {@link SimpleAddonRepository#filter(String...)}.
+ * <p>
+ * Keys may be any public attribute of the associated `Addon` type, and
+ * values are matched case-insensitively against the attribute's
+ * `toString()` representation, or as a case-sensitive pattern if they
+ * contain the wildcard "*".
+ * <p>
+ * Wildcard patterns are compiled once when the query is created, and
+ * attribute accessors are resolved once per `Addon` type, so a single
+ * query may be efficiently evaluated against an entire repository.
+ */
+public class AddonQuery implements Predicate<Addon> {
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Addon.class);
+
+	private static final Map<Class<?>, Map<String, MethodHandle>> typeGetters = new ConcurrentHashMap<>();
+
+	private final Map<String, String> filters;
+	private final List<Condition> conditions;
+	private final Map<Class<?>, Predicate<Addon>> typePredicates = new ConcurrentHashMap<>();
+
+	private AddonQuery(Map<String, String> filters) {
+		this.filters = filters;
+		this.conditions = new ArrayList<>(filters.size());
+		filters.forEach((k, v) -> conditions.add(new Condition(k, v)));
+	}
+
+	/**
+	 * Compile a query from the provided filters.
+	 *
+	 * @param keysValues filters, in pairs of [key, value, key, value, ...]
+	 * @return a new query
+	 * @throws IllegalArgumentException filters were not provided in pairs
+	 */
+	public static AddonQuery compile(String... keysValues) {
+		if (keysValues.length % 2 != 0) {
+			throw new IllegalArgumentException("Keys with values expected in filter argument " + String.join(",", keysValues));
+		}
+
+		Map<String, String> filters = new LinkedHashMap<>(keysValues.length / 2);
+		for (int i = 0; i < keysValues.length; i++) {
+			filters.put(keysValues[i].toLowerCase(), keysValues[++i]);
+		}
+
+		return new AddonQuery(filters);
+	}
+
+	/**
+	 * @return true if this query has no filters, and will therefore match everything
+	 */
+	public boolean isEmpty() {
+		return filters.isEmpty();
+	}
+
+	/**
+	 * Get the exact value this query requires for an attribute, if any.
+	 * <p>
+	 * This may be used to look up candidate content from indexes before
+	 * evaluating the full query.
+	 *
+	 * @param key lowercase attribute name
+	 * @return the value required, or null if the attribute is not filtered on,
+	 * 	or is matched using a wildcard pattern
+	 */
+	public String exact(String key) {
+		String value = filters.get(key);
+		if (value == null || value.contains("*")) return null;
+		return value;
+	}
+
+	@Override
+	public boolean test(Addon addon) {
+		if (conditions.isEmpty()) return true;
+		return typePredicates.computeIfAbsent(addon.getClass(), this::forType).test(addon);
+	}
+
+	private Predicate<Addon> forType(Class<?> type) {
+		Map<String, MethodHandle> getters = getters(type);
+
+		Predicate<Addon> result = a -> true;
+		for (Condition c : conditions) {
+			MethodHandle getter = getters.get(c.key);
+			if (getter == null) return a -> false;
+
+			result = result.and(a -> {
+				try {
+					return c.matches((Object)getter.invokeExact(a));
+				} catch (Throwable e) {
+					return false;
+				}
+			});
+		}
+
+		return result;
+	}
+
+	private static Map<String, MethodHandle> getters(Class<?> type) {
+		return typeGetters.computeIfAbsent(type, t -> {
+			Map<String, MethodHandle> getters = new ConcurrentHashMap<>();
+			Reflect.classLowercaseFields(t).forEach((name, field) -> {
+				try {
+					getters.put(name, getter(field));
+				} catch (IllegalAccessException e) {
+					// field is not accessible, and will not be matched
+				}
+			});
+			return getters;
+		});
+	}
+
+	private static MethodHandle getter(Field field) throws IllegalAccessException {
+		MethodHandle handle = LOOKUP.unreflectGetter(field);
+		if (Modifier.isStatic(field.getModifiers())) {
+			handle = MethodHandles.dropArguments(handle, 0, field.getDeclaringClass());
+		}
+		return handle.asType(GETTER_TYPE);
+	}
+
+	private static class Condition {
+
+		private final String key;
+		private final String value;
+		private final Pattern pattern;
+		private final Long number;
+		private final Boolean bool;
+
+		private Condition(String key, String value) {
+			this.key = key;
+			this.value = value;
+			this.pattern = value.contains("*") ? Pattern.compile(value.replace("*", ".*")) : null;
+			this.number = pattern == null ? number(value) : null;
+			this.bool = pattern == null && (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false"))
+				? Boolean.parseBoolean(value)
+				: null;
+		}
+
+		private static Long number(String value) {
+			try {
+				long parsed = Long.parseLong(value);
+				// only values which would compare equal as strings may be compared numerically
+				return Long.toString(parsed).equals(value) ? parsed : null;
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+
+		private boolean matches(Object val) {
+			if (val == null) return false;
+
+			if (val instanceof String s) {
+				return pattern != null ? pattern.matcher(s).matches() : s.equalsIgnoreCase(value);
+			}
+
+			if (pattern == null) {
+				if (val instanceof Integer || val instanceof Long || val instanceof Short || val instanceof Byte) {
+					return number != null && number == ((Number)val).longValue();
+				}
+				if (val instanceof Boolean b) return b.equals(bool);
+			}
+
+			String strVal = val.toString();
+			if (strVal == null) return false;
+
+			return pattern != null ? pattern.matcher(strVal).matches() : strVal.equalsIgnoreCase(value);
+		}
+	}
+}
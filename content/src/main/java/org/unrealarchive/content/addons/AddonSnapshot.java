@@ -0,0 +1,33 @@
+package org.unrealarchive.content.addons;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.unrealarchive.content.FileSnapshot;
+
+/**
+ * A binary image of the addon records held within a {@link SimpleAddonRepository.FileRepository}.
+ * <p>
+ * Records are stored as Smile-encoded bytes, and are only decoded once they
+ * have been validated against their source files.
+ */
+class AddonSnapshot {
+
+	private static final int MAGIC = 0x55414153; // "UAAS"
+	private static final int FORMAT_VERSION = 1;
+
+	static final FileSnapshot<byte[]> SNAPSHOT = new FileSnapshot<>("content snapshot", MAGIC, FORMAT_VERSION,
+																	 AddonSnapshot::readData, AddonSnapshot::writeData);
+
+	private static byte[] readData(DataInputStream in) throws IOException {
+		byte[] data = new byte[in.readInt()];
+		in.readFully(data);
+		return data;
+	}
+
+	private static void writeData(DataOutputStream out, byte[] data) throws IOException {
+		out.writeInt(data.length);
+		out.write(data);
+	}
+}
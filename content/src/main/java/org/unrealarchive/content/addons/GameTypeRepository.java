@@ -7,11 +7,8 @@ import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
@@ -56,10 +53,18 @@ public interface GameTypeRepository {
 		private final Set<GameTypeHolder> gameTypes;
 		private final Map<String, Collection<GameType>> contentFileMap;
 
+		// lookup indexes, keyed by game and lowercase gametype name
+		private final Map<NameKey, Set<GameTypeHolder>> names;
+		private final Map<NameKey, Set<GameTypeHolder>> altNames;
+		private final Map<NameKey, Set<GameTypeHolder>> variations;
+
 		public FileRepository(Path path) throws IOException {
 			this.path = path;
-			this.gameTypes = new HashSet<>();
-			this.contentFileMap = new HashMap<>();
+			this.gameTypes = ConcurrentHashMap.newKeySet();
+			this.contentFileMap = new ConcurrentHashMap<>();
+			this.names = new ConcurrentHashMap<>();
+			this.altNames = new ConcurrentHashMap<>();
+			this.variations = new ConcurrentHashMap<>();
 
 			scanPath(path, null);
 		}
@@ -71,7 +76,7 @@ public interface GameTypeRepository {
 						GameType g = YAML.fromFile(file, GameType.class);
 						g.variation = parent != null;
 						GameTypeHolder holder = new GameTypeHolder(file, g, parent);
-						gameTypes.add(holder);
+						add(holder);
 
 						// while reading this content, also index its individual files for later quick lookup
 						g.releases.stream().flatMap(r -> r.files.stream()).flatMap(f -> f.files.stream()).forEach(f -> {
@@ -90,6 +95,25 @@ public interface GameTypeRepository {
 			}
 		}
 
+		private void add(GameTypeHolder holder) {
+			gameTypes.add(holder);
+			names.computeIfAbsent(holder.name, k -> ConcurrentHashMap.newKeySet()).add(holder);
+			holder.altNames.forEach(n -> altNames.computeIfAbsent(n, k -> ConcurrentHashMap.newKeySet()).add(holder));
+			if (holder.parentName != null) {
+				variations.computeIfAbsent(holder.parentName, k -> ConcurrentHashMap.newKeySet()).add(holder);
+			}
+		}
+
+		private void remove(GameTypeHolder holder) {
+			// keys recorded when the holder was added are used, since the gametype itself may have been changed since
+			gameTypes.remove(holder);
+			names.computeIfPresent(holder.name, (k, v) -> v.remove(holder) && v.isEmpty() ? null : v);
+			holder.altNames.forEach(n -> altNames.computeIfPresent(n, (k, v) -> v.remove(holder) && v.isEmpty() ? null : v));
+			if (holder.parentName != null) {
+				variations.computeIfPresent(holder.parentName, (k, v) -> v.remove(holder) && v.isEmpty() ? null : v);
+			}
+		}
+
 		@Override
 		public int size() {
 			return gameTypes.size();
@@ -105,11 +129,11 @@ public interface GameTypeRepository {
 
 		@Override
 		public Set<GameType> variations(GameType gameType) {
-			return gameTypes.stream()
-							.filter(g -> !g.gametype.deleted())
-							.filter(g -> g.variationOf != null && g.variationOf.gametype.equals(gameType))
-							.map(g -> g.gametype)
-							.collect(Collectors.toSet());
+			return variations.getOrDefault(NameKey.of(gameType), Set.of()).stream()
+							 .filter(g -> !g.gametype.deleted())
+							 .filter(g -> g.variationOf.gametype.equals(gameType))
+							 .map(g -> g.gametype)
+							 .collect(Collectors.toSet());
 		}
 
 		@Override
@@ -164,14 +188,13 @@ public interface GameTypeRepository {
 		@Override
 		public void put(GameType gameType) throws IOException {
 			Path path = gameTypePath(Games.byName(gameType.game), gameType.name);
+			GameTypeHolder parent = null;
 			if (gameType.isVariation()) {
-				GameTypeHolder parent = gameTypes.stream()
-												 .filter(g -> !g.gametype.deleted())
-												 .filter(g -> g.gametype.game().equals(gameType.game())
-															  && g.gametype.name().equalsIgnoreCase(gameType.name()))
-												 .findFirst()
-												 .map(g -> g.variationOf)
-												 .orElse(null);
+				parent = names.getOrDefault(NameKey.of(gameType), Set.of()).stream()
+							  .filter(g -> !g.gametype.deleted())
+							  .findFirst()
+							  .map(g -> g.variationOf)
+							  .orElse(null);
 				if (parent != null) {
 					path = parent.path.getParent().resolve("variations").resolve(Util.slug(gameType.name));
 				}
@@ -182,8 +205,13 @@ public interface GameTypeRepository {
 			Files.writeString(yml, YAML.toString(gameType), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
 
 			// replace existing entry
-			gameTypes.removeIf(gh -> gh.gametype.game.equalsIgnoreCase(gameType.game) && gh.gametype.name.equalsIgnoreCase(gameType.name));
-			gameTypes.add(new GameTypeHolder(yml, gameType));
+			synchronized (this) {
+				gameTypes.stream()
+						 .filter(gh -> gh.gametype.game.equalsIgnoreCase(gameType.game) && gh.gametype.name.equalsIgnoreCase(gameType.name))
+						 .toList()
+						 .forEach(this::remove);
+				add(new GameTypeHolder(yml, gameType, parent));
+			}
 		}
 
 		@Override
@@ -208,23 +236,18 @@ public interface GameTypeRepository {
 
 		@Override
 		public GameType findGametype(Games game, String gameType) {
-			return gameTypes.stream()
-							.filter(g -> !g.gametype.deleted())
-							.filter(g -> g.gametype.game().equals(game.name))
-							.filter(g -> {
-								if (g.gametype.name().equalsIgnoreCase(gameType)) return true;
-								if (g.gametype.altNames == null || g.gametype.altNames.isEmpty()) return false;
-								return g.gametype.altNames.contains(gameType);
-							})
-							.findFirst()
-							.map(h -> h.gametype)
-							.orElse(null);
+			return Stream.concat(names.getOrDefault(new NameKey(game.name, gameType), Set.of()).stream(),
+								 altNames.getOrDefault(new NameKey(game.name, gameType), Set.of()).stream())
+						 .filter(g -> !g.gametype.deleted())
+						 .findFirst()
+						 .map(h -> h.gametype)
+						 .orElse(null);
 		}
 
 		private GameTypeHolder getGameType(GameType gameType) {
-			return gameTypes.stream()
-							.filter(g -> gameType.equals(g.gametype))
-							.findFirst().orElseThrow(() -> new IllegalArgumentException("GameType was not found: " + gameType.name()));
+			return names.getOrDefault(NameKey.of(gameType), Set.of()).stream()
+						.filter(g -> gameType.equals(g.gametype))
+						.findFirst().orElseThrow(() -> new IllegalArgumentException("GameType was not found: " + gameType.name()));
 		}
 
 		private Path gameTypePath(Games game, String gameType) {
@@ -232,19 +255,43 @@ public interface GameTypeRepository {
 		}
 
 		private Path path(GameType gameType) {
-			return gameTypes.stream()
-							.filter(g -> gameType.equals(g.gametype))
-							.findFirst()
-							.map(h -> h.path)
-							.orElse(null);
+			return names.getOrDefault(NameKey.of(gameType), Set.of()).stream()
+						.filter(g -> gameType.equals(g.gametype))
+						.findFirst()
+						.map(h -> h.path)
+						.orElse(null);
 		}
 
+		/**
+		 * Gametype lookup key. Names are matched case-insensitively, while
+		 * the game name must match exactly.
+		 */
+		private record NameKey(String game, String name) {
+
+			private NameKey {
+				name = name == null ? null : name.toLowerCase();
+			}
+
+			private static NameKey of(GameType gameType) {
+				return new NameKey(gameType.game, gameType.name);
+			}
+		}
+
+		/**
+		 * A loaded gametype. Holders are compared by identity, as the gametype
+		 * they hold may be changed in place before being put again.
+		 */
 		private static class GameTypeHolder {
 
 			private final Path path;
 			private final GameType gametype;
 			private final GameTypeHolder variationOf;
 
+			// lookup keys this holder is indexed by
+			private final NameKey name;
+			private final Set<NameKey> altNames;
+			private final NameKey parentName;
+
 			public GameTypeHolder(Path path, GameType gametype) {
 				this(path, gametype, null);
 			}
@@ -253,19 +300,11 @@ public interface GameTypeRepository {
 				this.path = path;
 				this.gametype = gametype;
 				this.variationOf = variationOf;
-			}
-
-			@Override
-			public boolean equals(java.lang.Object o) {
-				if (this == o) return true;
-				if (o == null || getClass() != o.getClass()) return false;
-				GameTypeHolder that = (GameTypeHolder)o;
-				return Objects.equals(gametype, that.gametype);
-			}
-
-			@Override
-			public int hashCode() {
-				return Objects.hash(gametype);
+				this.name = NameKey.of(gametype);
+				this.altNames = gametype.altNames == null
+					? Set.of()
+					: gametype.altNames.stream().map(n -> new NameKey(gametype.game, n)).collect(Collectors.toUnmodifiableSet());
+				this.parentName = variationOf == null ? null : variationOf.name;
 			}
 		}
 	}
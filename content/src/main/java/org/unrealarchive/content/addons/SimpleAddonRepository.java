@@ -1,24 +1,40 @@
 package org.unrealarchive.content.addons;
 
 import java.io.IOException;
-import java.lang.ref.SoftReference;
-import java.lang.reflect.Field;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import org.unrealarchive.common.Reflect;
+import org.unrealarchive.common.Smile;
 import org.unrealarchive.common.Util;
 import org.unrealarchive.common.YAML;
+import org.unrealarchive.content.FileSnapshot;
 
 public interface SimpleAddonRepository {
 
@@ -83,51 +99,20 @@ public interface SimpleAddonRepository {
 	 * values will be evaluated against the attribute's `toString()` implementation.
 	 */
 	default public Collection<Addon> filter(String... keysValues) {
-		if (keysValues.length == 0) return all(false);
-
-		if (keysValues.length % 2 != 0) {
-			throw new IllegalArgumentException("Keys with values expected in filter argument " + String.join(",", keysValues));
-		}
-
-		Map<String, String> filters = new HashMap<>(keysValues.length / 2);
-		for (int i = 0; i < keysValues.length; i++) {
-			filters.put(keysValues[i].toLowerCase(), keysValues[++i]);
-		}
-
-		return all(false)
-			.stream()
-			.filter(a -> {
-				Map<String, Field> fields = Reflect.classLowercaseFields(a);
-
-				boolean found = false;
+		return filter(AddonQuery.compile(keysValues));
+	}
 
-				try {
-					for (String f : filters.keySet()) {
-						Field field = fields.get(f);
-						if (field == null) return false;
-
-						Object val = field.get(a);
-						if (val == null) return false;
-
-						String strVal = val.toString();
-						if (strVal == null) return false;
-
-						String match = filters.get(f);
-						if (match.contains("*")) {
-							if (strVal.matches(match.replace("*", ".*"))) found = true;
-							else return false;
-						} else {
-							if (strVal.equalsIgnoreCase(match)) found = true;
-							else return false;
-						}
-					}
-				} catch (IllegalAccessException | ClassCastException e) {
-					return false;
-				}
+	/**
+	 * Search the repository for content items matching the provided query.
+	 *
+	 * @see #filter(String...)
+	 */
+	default public Collection<Addon> filter(AddonQuery query) {
+		if (query.isEmpty()) return all(false);
 
-				return found;
-			})
-			.collect(Collectors.toSet());
+		return all(false).parallelStream()
+						 .filter(query)
+						 .collect(Collectors.toSet());
 	}
 
 	/**
@@ -140,6 +125,22 @@ public interface SimpleAddonRepository {
 	 */
 	public Collection<Addon> all(boolean withVariations);
 
+	/**
+	 * Stream content items in the repository, optionally including deleted items and variations.
+	 * <p>
+	 * Items are loaded as the stream is consumed, and no intermediate collection is
+	 * built, so this should be preferred over {@link #all(boolean)} where results are
+	 * only iterated once.
+	 */
+	public Stream<Addon> stream(boolean withDeleted, boolean withVariations);
+
+	/**
+	 * Stream content items of the type provided, optionally including deleted items and variations.
+	 *
+	 * @see #stream(boolean, boolean)
+	 */
+	public <T extends Addon> Stream<T> stream(Class<T> type, boolean withDeleted, boolean withVariations);
+
 	/**
 	 * Find all content items in the repository matching the name provided (exact, case-insensitive).
 	 * <p>
@@ -190,11 +191,62 @@ public interface SimpleAddonRepository {
 	 */
 	public Collection<Addon> variationsOf(String hash);
 
+	/**
+	 * Check whether the repository already holds content identical to the item provided.
+	 * <p>
+	 * This compares a fingerprint of the item's serialised form to the fingerprint
+	 * of the stored item, and does not need to load or compare the stored item.
+	 * A false result does not guarantee the items differ, since equivalent content
+	 * may not always serialise identically.
+	 *
+	 * @param content content to check
+	 * @return true if the repository holds identical content with the same hash
+	 */
+	public boolean unchanged(Addon content) throws IOException;
+
 	/**
 	 * Add a content item to the repository. Will replace existing items matching the item's hash.
 	 */
 	public void put(Addon added) throws IOException;
 
+	/**
+	 * Begin a batch of content writes.
+	 * <p>
+	 * Content added to the batch is staged, and is not visible within the
+	 * repository until the batch is committed. Closing a batch discards any
+	 * staged content which has not been committed.
+	 *
+	 * @param sync if true, all written content will be flushed to storage
+	 *             before the batch commit completes
+	 * @return a new write batch
+	 */
+	public WriteBatch batch(boolean sync);
+
+	/**
+	 * A batch of content writes, created via {@link #batch(boolean)}.
+	 */
+	public interface WriteBatch extends AutoCloseable {
+
+		/**
+		 * Stage a content item to be added to the repository. Will replace
+		 * existing items matching the item's hash once committed.
+		 */
+		public void put(Addon added) throws IOException;
+
+		/**
+		 * Apply all staged content to the repository.
+		 *
+		 * @return number of content items written
+		 */
+		public int commit() throws IOException;
+
+		/**
+		 * Discard any staged content which has not been committed.
+		 */
+		@Override
+		public void close() throws IOException;
+	}
+
 	/**
 	 * Perform garbage collection on the repository.
 	 * <p>
@@ -234,34 +286,54 @@ public interface SimpleAddonRepository {
 		private final Path path;
 		private final Map<String, ContentHolder> content;
 
-		private final Map<String, Collection<ContentHolder>> contentFileMap;
-		private final Map<String, Collection<ContentHolder>> variationsMap;
+		private final ContentIndex index;
+		private final AddonCache cache;
+		private final AddonCompactor compactor;
 
 		public FileRepository(Path path) throws IOException {
+			this(path, null);
+		}
+
+		public FileRepository(Path path, Path snapshot) throws IOException {
+			this(path, snapshot, AddonCache.soft(), null);
+		}
+
+		/**
+		 * Load a repository from the YAML files within `path`.
+		 * <p>
+		 * If a `snapshot` path is provided, content will be loaded from that
+		 * snapshot where possible, and only YAML files which have been added
+		 * or changed since the snapshot was written will be parsed. The
+		 * snapshot will be re-written if anything changed.
+		 * <p>
+		 * Full content records are held in the `cache` provided, and will be
+		 * re-read from their YAML files when not cached.
+		 * <p>
+		 * If a `compactor` is provided, all content will be compacted as it's
+		 * loaded, to reduce memory use.
+		 *
+		 * @param path      content root path
+		 * @param snapshot  snapshot file, or null to always load from YAML
+		 * @param cache     cache for loaded content
+		 * @param compactor content compactor, or null to disable compaction
+		 */
+		public FileRepository(Path path, Path snapshot, AddonCache cache, AddonCompactor compactor) throws IOException {
 			this.path = path;
+			this.cache = cache;
+			this.compactor = compactor;
 			this.content = new ConcurrentHashMap<>(CONTENT_INITIAL_SIZE);
-			this.contentFileMap = new ConcurrentHashMap<>(FILES_INITIAL_SIZE);
-			this.variationsMap = new ConcurrentHashMap<>(VARIATION_INITIAL_SIZE);
+			this.index = new ContentIndex();
+
+			if (snapshot != null) {
+				loadSnapshot(snapshot);
+				return;
+			}
 
 			try (Stream<Path> files = Files.find(path, 20, (file, attr) -> file.toString().endsWith(".yml"))) {
 				files.parallel().forEach(file -> {
 					try {
 						Addon c = YAML.fromFile(file, Addon.class);
-						ContentHolder holder = new ContentHolder(file, c);
-						content.put(c.hash, holder);
-
-						// while reading this content, also index its individual files for later quick lookup
-						for (Addon.ContentFile contentFile : c.files) {
-							Collection<ContentHolder> fileSet = contentFileMap.computeIfAbsent(contentFile.hash,
-																							   h -> ConcurrentHashMap.newKeySet());
-							fileSet.add(holder);
-						}
-
-						if (c.variationOf != null) {
-							Collection<ContentHolder> variations = variationsMap.computeIfAbsent(c.variationOf,
-																								 h -> ConcurrentHashMap.newKeySet());
-							variations.add(holder);
-						}
+						index(file, c, Smile.toBytes(c));
 					} catch (Exception e) {
 						throw new RuntimeException(e);
 					}
@@ -269,6 +341,63 @@ public interface SimpleAddonRepository {
 			}
 		}
 
+		private void loadSnapshot(Path snapshot) throws IOException {
+			final Map<Path, BasicFileAttributes> ymlFiles = new HashMap<>(CONTENT_INITIAL_SIZE);
+			Files.walkFileTree(path, Set.of(), 20, new SimpleFileVisitor<>() {
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+					if (file.toString().endsWith(".yml")) ymlFiles.put(file, attrs);
+					return FileVisitResult.CONTINUE;
+				}
+			});
+
+			final Map<Path, FileSnapshot.Entry<byte[]>> snapshotEntries = AddonSnapshot.SNAPSHOT.read(snapshot, path);
+			final Collection<FileSnapshot.Entry<byte[]>> entries = new ConcurrentLinkedQueue<>();
+			final AtomicInteger reused = new AtomicInteger(0);
+
+			ymlFiles.entrySet().parallelStream().forEach(e -> {
+				final Path file = e.getKey();
+				final long modified = e.getValue().lastModifiedTime().toMillis();
+				final long size = e.getValue().size();
+				try {
+					FileSnapshot.Entry<byte[]> entry = snapshotEntries.get(file);
+					Addon c = null;
+					if (entry != null && entry.matches(modified, size)) {
+						try {
+							c = Smile.fromBytes(entry.value(), Addon.class);
+							reused.incrementAndGet();
+						} catch (IOException ex) {
+							// unreadable record, fall back to the yml file
+						}
+					}
+
+					if (c == null) {
+						c = YAML.fromFile(file, Addon.class);
+						entry = new FileSnapshot.Entry<>(file, modified, size, Smile.toBytes(c));
+					}
+
+					entries.add(entry);
+					index(file, c, entry.value());
+				} catch (Exception ex) {
+					throw new RuntimeException(ex);
+				}
+			});
+
+			// re-write the snapshot if anything was added, changed or removed
+			if (reused.get() != entries.size() || reused.get() != snapshotEntries.size()) {
+				AddonSnapshot.SNAPSHOT.write(snapshot, path, entries);
+			}
+		}
+
+		private void index(Path file, Addon c, byte[] serialised) {
+			if (compactor != null) compactor.compact(c);
+
+			ContentHolder holder = new ContentHolder(file, c, fingerprint(serialised));
+			content.put(c.hash, holder);
+			index.add(holder);
+			if (!holder.deleted && !holder.isVariation) cache.put(c.hash, c);
+		}
+
 		@Override
 		public Path path() {
 			return path;
@@ -284,19 +413,48 @@ public interface SimpleAddonRepository {
 			return content.values().parallelStream().mapToLong(c -> c.fileSize).sum();
 		}
 
+		@Override
+		public Map<Class<? extends Addon>, Long> countByType(String game) {
+			Stream<ContentHolder> holders = game == null ? content.values().stream() : index.byGame(game);
+			return holders.filter(c -> !c.deleted && !c.isVariation)
+						  .filter(c -> game == null || c.game.equals(game))
+						  .collect(Collectors.groupingBy(c -> c.type, Collectors.counting()));
+		}
+
+		@Override
+		public Map<String, Long> countByGame() {
+			return content.values().stream()
+						  .filter(c -> !c.deleted && !c.isVariation)
+						  .collect(Collectors.groupingBy(c -> c.game, Collectors.counting()));
+		}
+
 		@Override
 		public Collection<Addon> search(String game, String type, String name, String author) {
-			return content.values().parallelStream()
-						  .map(ContentHolder::content)
-						  .filter(Objects::nonNull)
-						  .filter(c -> {
-							  boolean match = (game == null || c.game.equalsIgnoreCase(game));
-							  match = match && (type == null || c.contentType.equalsIgnoreCase(type));
-							  match = match && (author == null || c.author.toLowerCase().contains(author.toLowerCase()));
-							  match = match && (name == null || c.name.toLowerCase().contains(name.toLowerCase()));
-							  return match;
-						  })
-						  .collect(Collectors.toSet());
+			final String lowerName = name == null ? null : name.toLowerCase();
+			final String lowerAuthor = author == null ? null : author.toLowerCase();
+
+			// narrow the search down as far as possible using indexes, before checking individual items
+			Collection<ContentHolder> candidates;
+			if (game != null) candidates = index.byGameAndType(game, type);
+			else if (type != null) candidates = index.byGameAndType(null, type);
+			else candidates = content.values();
+
+			if (lowerAuthor != null) {
+				Collection<ContentHolder> byAuthor = index.byAuthor(lowerAuthor);
+				if (byAuthor != null && byAuthor.size() < candidates.size()) candidates = byAuthor;
+			}
+
+			return candidates.parallelStream()
+							 .filter(c -> {
+								 boolean match = (game == null || c.game.equalsIgnoreCase(game));
+								 match = match && (type == null || c.contentType.equalsIgnoreCase(type));
+								 match = match && (lowerAuthor == null || c.author.contains(lowerAuthor));
+								 match = match && (lowerName == null || c.name.contains(lowerName));
+								 return match;
+							 })
+							 .map(this::content)
+							 .filter(Objects::nonNull)
+							 .collect(Collectors.toSet());
 		}
 
 		@Override
@@ -306,27 +464,64 @@ public interface SimpleAddonRepository {
 
 		@Override
 		public Collection<Addon> all(boolean withVariations) {
-			return content.values().parallelStream()
-						  .filter(c -> !c.deleted)
+			return stream(false, withVariations).parallel().collect(Collectors.toSet());
+		}
+
+		@Override
+		public Stream<Addon> stream(boolean withDeleted, boolean withVariations) {
+			return content.values().stream()
+						  .filter(c -> withDeleted || !c.deleted)
 						  .filter(c -> withVariations || !c.isVariation)
-						  .map(ContentHolder::content)
-						  .filter(Objects::nonNull)
-						  .collect(Collectors.toSet());
+						  .map(this::content)
+						  .filter(Objects::nonNull);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T extends Addon> Stream<T> stream(Class<T> type, boolean withDeleted, boolean withVariations) {
+			return index.byType(type)
+						.filter(c -> withDeleted || !c.deleted)
+						.filter(c -> withVariations || !c.isVariation)
+						.map(this::content)
+						.filter(Objects::nonNull)
+						.map(c -> (T)c);
+		}
+
+		@Override
+		public Collection<Addon> filter(AddonQuery query) {
+			if (query.isEmpty()) return all(false);
+
+			final String game = query.exact("game");
+			final String type = query.exact("contenttype");
+			final String author = query.exact("author");
+
+			Collection<ContentHolder> candidates = content.values();
+			if (game != null || type != null) candidates = index.byGameAndType(game, type);
+			if (author != null) {
+				Collection<ContentHolder> byAuthor = index.byAuthor(author.toLowerCase());
+				if (byAuthor != null && byAuthor.size() < candidates.size()) candidates = byAuthor;
+			}
+
+			return candidates.parallelStream()
+							 .filter(c -> !c.deleted && !c.isVariation)
+							 .map(this::content)
+							 .filter(Objects::nonNull)
+							 .filter(query)
+							 .collect(Collectors.toSet());
 		}
 
 		@Override
 		public Collection<Addon> forName(String name) {
-			return content.values().parallelStream()
-						  .map(ContentHolder::content)
-						  .filter(Objects::nonNull)
-						  .filter(c -> c.name.equalsIgnoreCase(name))
-						  .collect(Collectors.toSet());
+			return index.byName(name).stream()
+						.map(this::content)
+						.filter(Objects::nonNull)
+						.collect(Collectors.toSet());
 		}
 
 		@Override
 		public Addon forHash(String hash) {
 			ContentHolder contentHolder = content.get(hash);
-			if (contentHolder != null) return contentHolder.content();
+			if (contentHolder != null) return content(contentHolder);
 
 			return null;
 		}
@@ -337,56 +532,110 @@ public interface SimpleAddonRepository {
 		}
 
 		@Override
-		@SuppressWarnings("unchecked")
 		public <T extends Addon> Collection<T> get(Class<T> type, boolean withDeleted, boolean withVariations) {
-			return content.values().parallelStream()
-						  .filter(c -> type.isAssignableFrom(c.type))
-						  .filter(c -> withDeleted || !c.deleted)
-						  .filter(c -> withVariations || !c.isVariation)
-						  .map(ContentHolder::content)
-						  .filter(Objects::nonNull)
-						  .map(c -> (T)c)
-						  .collect(Collectors.toSet());
+			return stream(type, withDeleted, withVariations).parallel().collect(Collectors.toSet());
 		}
 
 		@Override
 		public int containingFileCount(String hash) {
-			return contentFileMap.getOrDefault(hash, Collections.emptySet()).size();
+			return index.containingFile(hash).size();
 		}
 
 		@Override
 		public Collection<Addon> containingFile(String hash) {
-			return contentFileMap.getOrDefault(hash, Collections.emptySet())
-								 .parallelStream().map(ContentHolder::content)
+			return index.containingFile(hash)
+								 .parallelStream().map(this::content)
 								 .filter(Objects::nonNull)
 								 .collect(Collectors.toSet());
 		}
 
 		@Override
 		public Collection<Addon> variationsOf(String hash) {
-			return variationsMap.getOrDefault(hash, Collections.emptySet())
-								.parallelStream().map(ContentHolder::content)
+			return index.variationsOf(hash)
+								.parallelStream().map(this::content)
 								.filter(Objects::nonNull)
 								.collect(Collectors.toSet());
 		}
 
+		@Override
+		public boolean unchanged(Addon content) throws IOException {
+			ContentHolder holder = this.content.get(content.hash);
+			if (holder == null) return false;
+
+			return Arrays.equals(holder.fingerprint, fingerprint(Smile.toBytes(content)));
+		}
+
 		@Override
 		public void put(Addon added) throws IOException {
-			ContentHolder replaces = content.get(added.hash);
+			apply(stage(added, false));
+		}
+
+		@Override
+		public WriteBatch batch(boolean sync) {
+			return new FileWriteBatch(sync);
+		}
 
+		/**
+		 * Write content to a temporary file alongside its final location,
+		 * so it may later be moved into place atomically.
+		 */
+		private StagedWrite stage(Addon added, boolean sync) throws IOException {
 			Path outPath = added.contentPath(path);
 			Files.createDirectories(outPath);
 
-			Path newYml = outPath.resolve(String.format("%s_[%s].yml", Util.slug(added.name), added.hash.substring(0, 8)));
-			Files.writeString(Util.safeFileName(newYml), YAML.toString(added),
-							  StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-
-			if (replaces != null && !replaces.path.equals(newYml)) {
-				// remove old yml file if new file changed
-				Files.deleteIfExists(replaces.path);
+			Path newYml = Util.safeFileName(
+				outPath.resolve(String.format("%s_[%s].yml", Util.slug(added.name), added.hash.substring(0, 8)))
+			);
+
+			// temporary files do not end with .yml, so will never be loaded as content
+			Path tmp = Files.createTempFile(outPath, ".", ".yml.tmp");
+			try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				ByteBuffer buffer = ByteBuffer.wrap(YAML.toString(added).getBytes(StandardCharsets.UTF_8));
+				while (buffer.hasRemaining()) channel.write(buffer);
+				if (sync) channel.force(true);
+			} catch (IOException e) {
+				Files.deleteIfExists(tmp);
+				throw e;
 			}
 
-			this.content.put(added.hash, new ContentHolder(newYml, added));
+			return new StagedWrite(new ContentHolder(newYml, added, fingerprint(Smile.toBytes(added))), added, tmp);
+		}
+
+		/**
+		 * Move staged content into place, and update indexes.
+		 */
+		private void apply(StagedWrite write) throws IOException {
+			final ContentHolder holder = write.holder;
+
+			// concurrent puts of the same content are serialised, so the file, the indexes and the cache always agree
+			try {
+				content.compute(holder.hash, (hash, replaces) -> {
+					try {
+						try {
+							Files.move(write.tmp, holder.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+						} catch (AtomicMoveNotSupportedException e) {
+							Files.move(write.tmp, holder.path, StandardCopyOption.REPLACE_EXISTING);
+						}
+
+						if (replaces != null && !replaces.path.equals(holder.path)) {
+							// remove old yml file if new file changed
+							Files.deleteIfExists(replaces.path);
+						}
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+
+					if (replaces != null) index.remove(replaces);
+					index.add(holder);
+					if (!holder.deleted && !holder.isVariation) cache.put(hash, write.content);
+					else cache.remove(hash);
+
+					return holder;
+				});
+			} catch (UncheckedIOException e) {
+				Files.deleteIfExists(write.tmp);
+				throw e.getCause();
+			}
 		}
 
 		@Override
@@ -397,6 +646,8 @@ public interface SimpleAddonRepository {
 				if (e.getValue().deleted) {
 					try {
 						if (Files.deleteIfExists(e.getValue().path)) {
+							index.remove(e.getValue());
+							cache.remove(e.getKey());
 							counter.incrementAndGet();
 							return true;
 						}
@@ -410,8 +661,10 @@ public interface SimpleAddonRepository {
 			content.entrySet().removeIf(e -> {
 				try {
 					if (e.getValue().isVariation) {
-						ContentHolder parent = content.get(e.getValue().content().variationOf);
-						if ((parent == null || parent.content().deleted()) && Files.deleteIfExists(e.getValue().path)) {
+						ContentHolder parent = content.get(e.getValue().variationOf);
+						if ((parent == null || parent.deleted) && Files.deleteIfExists(e.getValue().path)) {
+							index.remove(e.getValue());
+							cache.remove(e.getKey());
 							counter.incrementAndGet();
 							return true;
 						}
@@ -425,39 +678,265 @@ public interface SimpleAddonRepository {
 			return counter.get();
 		}
 
+		/**
+		 * @return statistics for the content cache
+		 */
+		public AddonCache.Stats cacheStats() {
+			return cache.stats();
+		}
+
+		private static byte[] fingerprint(byte[] serialised) {
+			try {
+				return MessageDigest.getInstance("SHA-1").digest(serialised);
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		private Addon content(ContentHolder holder) {
+			Addon has = cache.get(holder.hash);
+			if (has != null) return has;
+
+			try {
+				Addon newContent = YAML.fromFile(holder.path, Addon.class);
+				if (compactor != null) compactor.compact(newContent);
+				cache.put(holder.hash, newContent);
+				return newContent;
+			} catch (IOException e) {
+				e.printStackTrace(System.err);
+			}
+			return null;
+		}
+
+		private record StagedWrite(ContentHolder holder, Addon content, Path tmp) {}
+
+		private class FileWriteBatch implements WriteBatch {
+
+			private final boolean sync;
+			private final Map<String, StagedWrite> staged = new LinkedHashMap<>();
+
+			private FileWriteBatch(boolean sync) {
+				this.sync = sync;
+			}
+
+			@Override
+			public synchronized void put(Addon added) throws IOException {
+				StagedWrite previous = staged.put(added.hash, stage(added, sync));
+				if (previous != null) Files.deleteIfExists(previous.tmp);
+			}
+
+			@Override
+			public synchronized int commit() throws IOException {
+				final Set<Path> dirs = new HashSet<>();
+				int count = 0;
+				try {
+					for (Iterator<StagedWrite> it = staged.values().iterator(); it.hasNext(); ) {
+						StagedWrite write = it.next();
+						it.remove();
+						apply(write);
+						dirs.add(write.holder.path.getParent());
+						count++;
+					}
+				} finally {
+					// file contents were flushed when staged, now make sure the renames are durable too
+					if (sync) {
+						for (Path dir : dirs) {
+							try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+								channel.force(true);
+							} catch (IOException e) {
+								// not all platforms support syncing directories
+							}
+						}
+					}
+				}
+				return count;
+			}
+
+			@Override
+			public synchronized void close() throws IOException {
+				for (StagedWrite write : staged.values()) Files.deleteIfExists(write.tmp);
+				staged.clear();
+			}
+		}
+
+		/**
+		 * Secondary indexes over content holders, allowing lookups by type,
+		 * game, name and author without scanning the entire repository.
+		 * <p>
+		 * Holders must be removed from the index when they are replaced or
+		 * removed from the repository.
+		 */
+		private static class ContentIndex {
+
+			private static final Pattern TOKEN_SPLIT = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+			// type -> holders
+			private final Map<Class<? extends Addon>, Collection<ContentHolder>> types = new ConcurrentHashMap<>();
+			// lowercase game -> lowercase content type -> holders
+			private final Map<String, Map<String, Collection<ContentHolder>>> games = new ConcurrentHashMap<>();
+			// lowercase name -> holders
+			private final Map<String, Collection<ContentHolder>> names = new ConcurrentHashMap<>(CONTENT_INITIAL_SIZE);
+			// lowercase author name token -> holders
+			private final Map<String, Collection<ContentHolder>> authorTokens = new ConcurrentHashMap<>();
+			// file hash -> holders containing that file
+			private final Map<String, Collection<ContentHolder>> files = new ConcurrentHashMap<>(FILES_INITIAL_SIZE);
+			// parent hash -> variation holders
+			private final Map<String, Collection<ContentHolder>> variations = new ConcurrentHashMap<>(VARIATION_INITIAL_SIZE);
+
+			public void add(ContentHolder holder) {
+				add(types, holder.type, holder);
+				add(games.computeIfAbsent(holder.game.toLowerCase(), g -> new ConcurrentHashMap<>()),
+					holder.contentType.toLowerCase(), holder);
+				add(names, holder.name, holder);
+				for (String token : tokens(holder.author)) add(authorTokens, token, holder);
+				for (String file : holder.files) add(files, file, holder);
+				if (holder.variationOf != null) add(variations, holder.variationOf, holder);
+			}
+
+			public void remove(ContentHolder holder) {
+				remove(types, holder.type, holder);
+				Map<String, Collection<ContentHolder>> gameTypes = games.get(holder.game.toLowerCase());
+				if (gameTypes != null) remove(gameTypes, holder.contentType.toLowerCase(), holder);
+				remove(names, holder.name, holder);
+				for (String token : tokens(holder.author)) remove(authorTokens, token, holder);
+				for (String file : holder.files) remove(files, file, holder);
+				if (holder.variationOf != null) remove(variations, holder.variationOf, holder);
+			}
+
+			/**
+			 * Holders for content which contains the file with the hash provided.
+			 */
+			public Collection<ContentHolder> containingFile(String hash) {
+				return files.getOrDefault(hash, Set.of());
+			}
+
+			/**
+			 * Holders for variations of the content with the hash provided.
+			 */
+			public Collection<ContentHolder> variationsOf(String hash) {
+				return variations.getOrDefault(hash, Set.of());
+			}
+
+			/**
+			 * All holders of the type provided, including subtypes.
+			 */
+			public Stream<ContentHolder> byType(Class<?> type) {
+				return types.entrySet().stream()
+							.filter(e -> type.isAssignableFrom(e.getKey()))
+							.flatMap(e -> e.getValue().stream());
+			}
+
+			/**
+			 * All holders for the game provided.
+			 */
+			public Stream<ContentHolder> byGame(String game) {
+				return games.getOrDefault(game.toLowerCase(), Map.of()).values().stream().flatMap(Collection::stream);
+			}
+
+			/**
+			 * Holders for the game and content type provided. Either may be null to
+			 * include all games or types.
+			 */
+			public Collection<ContentHolder> byGameAndType(String game, String contentType) {
+				Stream<Map<String, Collection<ContentHolder>>> gameTypes = game == null
+					? games.values().stream()
+					: Stream.of(games.getOrDefault(game.toLowerCase(), Map.of()));
+
+				if (contentType == null) {
+					return gameTypes.flatMap(m -> m.values().stream()).flatMap(Collection::stream).toList();
+				} else if (game != null) {
+					return gameTypes.findFirst().map(m -> m.get(contentType.toLowerCase())).orElse(Set.of());
+				} else {
+					return gameTypes.map(m -> m.getOrDefault(contentType.toLowerCase(), Set.of()))
+									.flatMap(Collection::stream).toList();
+				}
+			}
+
+			/**
+			 * Holders with the exact (case-insensitive) name provided.
+			 */
+			public Collection<ContentHolder> byName(String name) {
+				return names.getOrDefault(name.toLowerCase(), Set.of());
+			}
+
+			/**
+			 * Candidate holders which may have author names containing the
+			 * provided text.
+			 * <p>
+			 * Any author containing the search text must have name tokens which
+			 * contain each of the search text's own tokens, so the result is a
+			 * superset of the actual matches, and should be checked further.
+			 *
+			 * @param author lowercase author search text
+			 * @return candidates, or null if the search text can not be used to narrow results
+			 */
+			public Collection<ContentHolder> byAuthor(String author) {
+				Set<ContentHolder> result = null;
+				for (String token : tokens(author)) {
+					Set<ContentHolder> matches = new HashSet<>();
+					authorTokens.forEach((k, v) -> {
+						if (k.contains(token)) matches.addAll(v);
+					});
+					if (result == null) result = matches;
+					else result.retainAll(matches);
+				}
+				return result;
+			}
+
+			private static Set<String> tokens(String text) {
+				Set<String> tokens = new HashSet<>();
+				for (String t : TOKEN_SPLIT.split(text)) {
+					if (!t.isEmpty()) tokens.add(t);
+				}
+				return tokens;
+			}
+
+			private static <K> void add(Map<K, Collection<ContentHolder>> map, K key, ContentHolder holder) {
+				map.compute(key, (k, v) -> {
+					Collection<ContentHolder> holders = v != null ? v : ConcurrentHashMap.newKeySet();
+					holders.add(holder);
+					return holders;
+				});
+			}
+
+			private static <K> void remove(Map<K, Collection<ContentHolder>> map, K key, ContentHolder holder) {
+				map.computeIfPresent(key, (k, v) -> {
+					v.remove(holder);
+					return v.isEmpty() ? null : v;
+				});
+			}
+		}
+
 		private static class ContentHolder {
 
 			private final Path path;
+			private final String hash;
 			private final boolean deleted;
 			private final boolean isVariation;
+			private final String variationOf;
+			private final String[] files;
 			private final int fileSize;
-			private final Class<?> type;
-			private SoftReference<Addon> content;
-
-			public ContentHolder(Path path, Addon content) {
+			private final Class<? extends Addon> type;
+			private final String game;
+			private final String contentType;
+			private final String name;   // lowercase, for searching
+			private final String author; // lowercase, for searching
+			private final byte[] fingerprint;
+
+			public ContentHolder(Path path, Addon content, byte[] fingerprint) {
 				this.path = path;
+				this.hash = content.hash;
 				this.deleted = content.deleted();
 				this.isVariation = content.isVariation();
+				this.variationOf = content.variationOf;
+				this.files = content.files.stream().map(f -> f.hash).distinct().toArray(String[]::new);
 				this.fileSize = content.fileSize;
 				this.type = content.getClass();
-				this.content = !deleted && !isVariation ? new SoftReference<>(content) : null;
-			}
-
-			public Addon content() {
-				Addon has = content == null ? null : content.get();
-				if (has != null) {
-					return has;
-				} else {
-					try {
-						// this in itself will cause a lot of object churn
-						Addon newContent = YAML.fromFile(path, Addon.class);
-						this.content = new SoftReference<>(newContent);
-						return newContent;
-					} catch (IOException e) {
-						e.printStackTrace(System.err);
-					}
-				}
-				return null;
+				this.game = Objects.toString(content.game, "");
+				this.contentType = Objects.toString(content.contentType, "");
+				this.name = Objects.toString(content.name, "").toLowerCase();
+				this.author = Objects.toString(content.author, "").toLowerCase();
+				this.fingerprint = fingerprint;
 			}
 		}
 	}
@@ -1,17 +1,16 @@
 package org.unrealarchive.content.docs;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.channels.ReadableByteChannel;
-import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardOpenOption;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 import org.unrealarchive.common.Util;
 import org.unrealarchive.common.YAML;
@@ -51,19 +50,22 @@ public interface DocumentRepository {
 		private final Map<Document, DocumentHolder> documents;
 
 		public FileRepository(Path path) throws IOException {
-			this.documents = new HashMap<>();
+			this.documents = new ConcurrentHashMap<>();
 
 			// load contents from path into content
-			Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
-				@Override
-				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-					if (Util.extension(file).equalsIgnoreCase("yml")) {
+			try (Stream<Path> files = Files.find(path, Integer.MAX_VALUE, (file, attr) -> attr.isRegularFile()
+																						   && Util.extension(file).equalsIgnoreCase("yml"))) {
+				files.parallel().forEach(file -> {
+					try {
 						Document c = YAML.fromFile(file, Document.class);
 						documents.put(c, new DocumentHolder(file, c));
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
 					}
-					return FileVisitResult.CONTINUE;
-				}
-			});
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
 		}
 
 		@Override
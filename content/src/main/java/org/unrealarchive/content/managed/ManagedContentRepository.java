@@ -1,19 +1,18 @@
 package org.unrealarchive.content.managed;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.channels.ReadableByteChannel;
-import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardOpenOption;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.time.LocalDate;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.unrealarchive.common.Util;
 import org.unrealarchive.common.YAML;
@@ -68,19 +67,22 @@ public interface ManagedContentRepository {
 
 		public FileRepository(Path root) throws IOException {
 			this.root = root;
-			this.content = new HashMap<>();
+			this.content = new ConcurrentHashMap<>();
 
 			// load contents from path into content
-			Files.walkFileTree(root, new SimpleFileVisitor<>() {
-				@Override
-				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-					if (Util.extension(file).equalsIgnoreCase("yml")) {
+			try (Stream<Path> files = Files.find(root, Integer.MAX_VALUE, (file, attr) -> attr.isRegularFile()
+																						   && Util.extension(file).equalsIgnoreCase("yml"))) {
+				files.parallel().forEach(file -> {
+					try {
 						Managed c = YAML.fromFile(file, Managed.class);
 						content.put(c, new ManagedContentHolder(file, c));
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
 					}
-					return FileVisitResult.CONTINUE;
-				}
-			});
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
 		}
 
 		@Override
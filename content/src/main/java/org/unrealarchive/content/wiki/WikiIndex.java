@@ -0,0 +1,52 @@
+package org.unrealarchive.content.wiki;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.unrealarchive.content.FileSnapshot;
+
+/**
+ * A persisted index of the page headers within a single wiki.
+ * <p>
+ * An index which can not be read results in all page headers being re-read
+ * from the YAML files.
+ */
+class WikiIndex {
+
+	private static final int MAGIC = 0x55415749; // "UAWI"
+	private static final int FORMAT_VERSION = 1;
+
+	static final FileSnapshot<WikiPageHeader> SNAPSHOT = new FileSnapshot<>("wiki index", MAGIC, FORMAT_VERSION,
+																			 WikiIndex::readHeader, WikiIndex::writeHeader);
+
+	private static WikiPageHeader readHeader(DataInputStream in) throws IOException {
+		String name = in.readUTF();
+		Set<String> categories = readSet(in);
+		Set<String> templates = readSet(in);
+		String redirect = in.readBoolean() ? in.readUTF() : null;
+		return new WikiPageHeader(name, categories, templates, redirect);
+	}
+
+	private static void writeHeader(DataOutputStream out, WikiPageHeader header) throws IOException {
+		out.writeUTF(header.name);
+		writeSet(out, header.categories);
+		writeSet(out, header.templates);
+		out.writeBoolean(header.redirect != null);
+		if (header.redirect != null) out.writeUTF(header.redirect);
+	}
+
+	private static Set<String> readSet(DataInputStream in) throws IOException {
+		final int count = in.readInt();
+		final Set<String> result = new HashSet<>(count);
+		for (int i = 0; i < count; i++) result.add(in.readUTF());
+		return Set.copyOf(result);
+	}
+
+	private static void writeSet(DataOutputStream out, Set<String> values) throws IOException {
+		out.writeInt(values.size());
+		for (String v : values) out.writeUTF(v);
+	}
+}
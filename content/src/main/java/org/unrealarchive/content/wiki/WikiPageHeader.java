@@ -0,0 +1,142 @@
+package org.unrealarchive.content.wiki;
+
+import java.beans.ConstructorProperties;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import org.unrealarchive.common.YAML;
+
+/**
+ * The small subset of a {@link WikiPage} needed to index a wiki, without
+ * the page's rendered HTML or source wikitext.
+ * <p>
+ * When read from a page's YAML file, the page's HTML content is skipped
+ * entirely, and the wikitext is only examined as it is read to identify
+ * redirects, without being bound to the header.
+ */
+public class WikiPageHeader {
+
+	private static final Pattern REDIRECT = Pattern.compile("#REDIRECT ?\\[\\[([^]]+)]]");
+
+	// redirects appear at the start of the wikitext, so only this much of it is examined
+	private static final int REDIRECT_PREFIX = 512;
+
+	public final String name;
+	public final Set<String> categories;
+	public final Set<String> templates;
+	public final String redirect;
+
+	public WikiPageHeader(String name, Set<String> categories, Set<String> templates, String redirect) {
+		this.name = name;
+		this.categories = categories;
+		this.templates = templates;
+		this.redirect = redirect;
+	}
+
+	@ConstructorProperties({ "name", "parse" })
+	public WikiPageHeader(String name, HeaderParse parse) {
+		this(name,
+			 parse == null ? Set.of() : names(parse.categories, c -> c.name),
+			 parse == null ? Set.of() : names(parse.templates, t -> t.name),
+			 parse == null ? null : parse.redirect);
+	}
+
+	/**
+	 * Read only the header fields of a page from its YAML file.
+	 *
+	 * @param path page YAML file
+	 * @return page header
+	 * @throws IOException failed to read the file
+	 */
+	public static WikiPageHeader read(Path path) throws IOException {
+		return YAML.fromFile(path, WikiPageHeader.class);
+	}
+
+	/**
+	 * Create a header from a fully loaded page.
+	 *
+	 * @param page page
+	 * @return page header
+	 */
+	public static WikiPageHeader of(WikiPage page) {
+		final String redirect = page.parse.wikitext == null ? null : redirect(page.parse.wikitext.text);
+		return new WikiPageHeader(page.name, new HeaderParse(page.parse.categories, page.parse.templates, redirect));
+	}
+
+	public boolean isRedirect() {
+		return redirect != null;
+	}
+
+	private static <T> Set<String> names(Set<T> items, Function<T, String> name) {
+		if (items == null) return Set.of();
+		return items.stream().map(name).filter(Objects::nonNull).collect(Collectors.toUnmodifiableSet());
+	}
+
+	private static String redirect(String text) {
+		if (text == null || !text.startsWith("#")) return null;
+		Matcher matcher = REDIRECT.matcher(text);
+		matcher.region(0, Math.min(text.length(), REDIRECT_PREFIX));
+		return matcher.lookingAt() ? matcher.group(1) : null;
+	}
+
+	/**
+	 * The parts of {@link WikiPage.WikiParse} used to build a header.
+	 */
+	public static class HeaderParse {
+
+		public final Set<WikiPage.WikiCategory> categories;
+		public final Set<WikiPage.WikiTemplate> templates;
+		public final String redirect;
+
+		@ConstructorProperties({ "categories", "templates", "wikitext" })
+		public HeaderParse(Set<WikiPage.WikiCategory> categories, Set<WikiPage.WikiTemplate> templates,
+						   @JsonDeserialize(using = RedirectDeserializer.class) String redirect) {
+			this.categories = categories;
+			this.templates = templates;
+			this.redirect = redirect;
+		}
+	}
+
+	/**
+	 * Reads the redirect target from a page's {@link WikiPage.WikiText} as
+	 * its text is read, rather than binding the text itself.
+	 * <p>
+	 * Public, so Jackson can create it when content is loaded as a named module.
+	 */
+	public static class RedirectDeserializer extends JsonDeserializer<String> {
+
+		public RedirectDeserializer() {
+		}
+
+		@Override
+		public String deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+			if (!p.isExpectedStartObjectToken()) {
+				p.skipChildren();
+				return null;
+			}
+
+			String redirect = null;
+			while (p.nextToken() == JsonToken.FIELD_NAME) {
+				final String field = p.currentName();
+				if (p.nextToken() == JsonToken.VALUE_STRING && (field.equals("*") || field.equals("text"))) {
+					if (redirect == null) redirect = redirect(p.getText());
+				} else {
+					p.skipChildren();
+				}
+			}
+			return redirect;
+		}
+	}
+}
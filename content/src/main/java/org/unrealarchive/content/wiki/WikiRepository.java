@@ -1,22 +1,23 @@
 package org.unrealarchive.content.wiki;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.ref.SoftReference;
 import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.unrealarchive.common.JSON;
 import org.unrealarchive.common.Util;
 import org.unrealarchive.common.YAML;
+import org.unrealarchive.content.FileSnapshot;
 
 public interface WikiRepository {
 
@@ -77,13 +78,29 @@ public interface WikiRepository {
 		}
 
 		public FileRepository(Path wikiRoot) throws IOException {
-			this.wikis = new HashMap<>();
+			this(wikiRoot, null);
+		}
+
+		/**
+		 * Load wikis, reading only the header of each page.
+		 * <p>
+		 * If an index path is provided, page headers are read from a per-wiki
+		 * index within it where possible, and only pages which have changed
+		 * since the index was written are read from their YAML files. The
+		 * index is then updated for subsequent use.
+		 *
+		 * @param wikiRoot  path containing wikis
+		 * @param indexPath directory containing page header indexes, may be null
+		 * @throws IOException failed to read wikis
+		 */
+		public FileRepository(Path wikiRoot, Path indexPath) throws IOException {
+			this.wikis = new ConcurrentHashMap<>();
 
 			// exit if there's no wiki content
 			if (!Files.exists(wikiRoot)) return;
 
 			try (Stream<Path> list = Files.list(wikiRoot)) {
-				list.forEach(d -> {
+				list.parallel().forEach(d -> {
 					try {
 						if (Files.exists(d.resolve("wiki.yml"))) {
 							// cool it's a wiki, lets load it and its pages
@@ -97,23 +114,47 @@ public interface WikiRepository {
 							wiki.redirects.put("Main Page", "index");
 							wikis.put(wiki.name, wiki);
 
-							try (Stream<Path> files = Files.walk(d.resolve("content"))) {
-								files.parallel()
-									 .filter(f -> Files.isRegularFile(f) && Util.extension(f).equalsIgnoreCase("yml"))
-									 .forEach(f -> {
-										 try {
-											 WikiPage pg = YAML.fromFile(f, WikiPage.class);
-											 wiki.addPage(f, pg);
-										 } catch (IOException e) {
-											 throw new RuntimeException(e);
-										 }
-									 });
-							}
+							loadPages(wiki, indexPath == null ? null : indexPath.resolve(d.getFileName() + ".idx"));
 						}
 					} catch (IOException e) {
-						throw new RuntimeException(e);
+						throw new UncheckedIOException(e);
 					}
 				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+		}
+
+		private static void loadPages(WikiRepository.Wiki wiki, Path index) throws IOException {
+			final Path content = wiki.path.resolve("content");
+			final Map<Path, FileSnapshot.Entry<WikiPageHeader>> indexed = index == null
+				? Map.of()
+				: WikiIndex.SNAPSHOT.read(index, content);
+			final Set<FileSnapshot.Entry<WikiPageHeader>> entries = ConcurrentHashMap.newKeySet();
+			final AtomicInteger changed = new AtomicInteger();
+
+			try (Stream<Path> files = Files.walk(content)) {
+				files.parallel()
+					 .filter(f -> Files.isRegularFile(f) && Util.extension(f).equalsIgnoreCase("yml"))
+					 .forEach(f -> {
+						 try {
+							 final long modified = Files.getLastModifiedTime(f).toMillis();
+							 final long size = Files.size(f);
+							 FileSnapshot.Entry<WikiPageHeader> entry = indexed.get(f);
+							 if (entry == null || !entry.matches(modified, size)) {
+								 entry = new FileSnapshot.Entry<>(f, modified, size, WikiPageHeader.read(f));
+								 changed.incrementAndGet();
+							 }
+							 entries.add(entry);
+							 wiki.addPage(f, entry.value());
+						 } catch (IOException e) {
+							 throw new UncheckedIOException(e);
+						 }
+					 });
+			}
+
+			if (index != null && (changed.get() > 0 || entries.size() != indexed.size())) {
+				WikiIndex.SNAPSHOT.write(index, content, entries);
 			}
 		}
 
@@ -137,8 +178,6 @@ public interface WikiRepository {
 	// FIXME a wiki should be a top-level content element, and the WikiPageHolder should be an implementation detail of the FileRepository
 	public static final class Wiki {
 
-		private static final Pattern REDIRECT = Pattern.compile("#REDIRECT ?\\[\\[([^]]+)]].*", Pattern.DOTALL);
-
 		public transient Path path;
 		public String name;
 		public String owner;
@@ -158,15 +197,17 @@ public interface WikiRepository {
 		private transient final Map<String, WikiPageHolder> pages = new ConcurrentHashMap<>();
 
 		public void addPage(Path path, WikiPage page) {
-			WikiPageHolder pageHolder = new WikiPageHolder(path);
-			pages.put(page.name, pageHolder);
-
-			Matcher matcher = REDIRECT.matcher(page.parse.wikitext.text);
-			if (matcher.matches()) {
-				redirects.put(page.name, matcher.group(1));
-				redirects.put(page.name.replaceAll(" ", "_"), matcher.group(1));
-				page.isRedirect = true;
-				pageHolder.isRedirect = true;
+			WikiPageHeader header = WikiPageHeader.of(page);
+			page.isRedirect = header.isRedirect();
+			addPage(path, header);
+		}
+
+		void addPage(Path path, WikiPageHeader header) {
+			pages.put(header.name, new WikiPageHolder(path, header));
+
+			if (header.isRedirect()) {
+				redirects.put(header.name, header.redirect);
+				redirects.put(header.name.replaceAll(" ", "_"), header.redirect);
 			}
 		}
 
@@ -174,13 +215,41 @@ public interface WikiRepository {
 			return pages.get(name).get();
 		}
 
+		/**
+		 * @return all pages, excluding redirects
+		 */
 		public Set<WikiPage> all() {
-			return pages.values().stream()
-						.filter(p -> !p.isRedirect)
+			return pages(h -> true);
+		}
+
+		/**
+		 * Get pages matching the provided filter, excluding redirects.
+		 * <p>
+		 * The filter is evaluated against page headers, so the full content
+		 * of pages which do not match is never loaded.
+		 *
+		 * @param filter page header filter
+		 * @return matching pages
+		 */
+		public Set<WikiPage> pages(Predicate<WikiPageHeader> filter) {
+			return pages.values().parallelStream()
+						.filter(p -> !p.header.isRedirect() && filter.test(p.header))
 						.map(WikiPageHolder::get)
 						.collect(Collectors.toSet());
 		}
 
+		/**
+		 * Determine whether a page should be published, based on this wiki's
+		 * skipped categories and templates.
+		 *
+		 * @param header page header
+		 * @return true if the page is not excluded
+		 */
+		public boolean publishable(WikiPageHeader header) {
+			return (skipCategories == null || header.categories.stream().noneMatch(c -> skipCategories.stream().anyMatch(c::contains)))
+				   && (skipTemplates == null || header.templates.stream().noneMatch(t -> skipTemplates.stream().anyMatch(t::contains)));
+		}
+
 		public static class WikiLicence {
 
 			public String name;
@@ -190,11 +259,12 @@ public interface WikiRepository {
 		private static class WikiPageHolder {
 
 			private final Path path;
+			private final WikiPageHeader header;
 			private SoftReference<WikiPage> page;
-			private boolean isRedirect;
 
-			public WikiPageHolder(Path path) {
+			public WikiPageHolder(Path path, WikiPageHeader header) {
 				this.path = path;
+				this.header = header;
 				this.page = null;
 			}
 
@@ -203,6 +273,7 @@ public interface WikiRepository {
 				if (maybePage == null) {
 					try {
 						maybePage = YAML.fromFile(path, WikiPage.class);
+						maybePage.isRedirect = header.isRedirect();
 						page = new SoftReference<>(maybePage);
 					} catch (IOException e) {
 						throw new RuntimeException("Failed to load page from file", e);
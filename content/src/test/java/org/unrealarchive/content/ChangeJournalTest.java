@@ -0,0 +1,42 @@
+package org.unrealarchive.content;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.unrealarchive.content.addons.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ChangeJournalTest {
+
+	@Test
+	public void journalTest() throws IOException {
+		Path file = Files.createTempDirectory("ua_test").resolve("changes.log");
+		ChangeJournal journal = new ChangeJournal(file);
+
+		assertEquals(0, journal.since(0).changes().size());
+
+		Map map = new Map();
+		journal.record(ChangeJournal.Operation.ADD, map, "10000000");
+		journal.record(ChangeJournal.Operation.UPDATE, map, "10000000");
+
+		ChangeJournal.Changes changes = journal.since(0);
+		assertEquals(2, changes.changes().size());
+		assertEquals(ChangeJournal.Operation.ADD, changes.changes().get(0).operation());
+		assertEquals("Map", changes.changes().get(0).type());
+		assertEquals("10000000", changes.changes().get(1).id());
+
+		// continue from the last position, ignoring an incomplete trailing entry
+		journal.record(ChangeJournal.Operation.DELETE, map, "20000000");
+		Files.writeString(file, "2024-01-01T00:00:00Z\tADD", StandardOpenOption.APPEND);
+
+		ChangeJournal.Changes more = journal.since(changes.position());
+		assertEquals(1, more.changes().size());
+		assertEquals(ChangeJournal.Operation.DELETE, more.changes().get(0).operation());
+		assertEquals(0, journal.since(more.position()).changes().size());
+	}
+}
@@ -0,0 +1,96 @@
+package org.unrealarchive.content.addons;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import org.unrealarchive.common.ArchiveUtil;
+import org.unrealarchive.common.YAML;
+import org.unrealarchive.content.Games;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameTypeRepositoryTest {
+
+	@Test
+	public void findGametypes() throws IOException {
+		final Path tmpRoot = Files.createTempDirectory("test-gametypes");
+		try {
+			final GameType parent = gameType("Capture The Flag", "CTF");
+			final GameType variation = gameType("Instagib CTF");
+			variation.variation = true;
+
+			final Path parentPath = Files.createDirectories(tmpRoot.resolve("Unreal Tournament").resolve("capture-the-flag"));
+			Files.writeString(parentPath.resolve("gametype.yml"), YAML.toString(parent));
+			final Path variationPath = Files.createDirectories(parentPath.resolve("variations").resolve("instagib-ctf"));
+			Files.writeString(variationPath.resolve("gametype.yml"), YAML.toString(variation));
+
+			final GameTypeRepository repo = new GameTypeRepository.FileRepository(tmpRoot);
+			assertEquals(2, repo.size());
+
+			assertEquals(parent, repo.findGametype(Games.UNREAL_TOURNAMENT, "capture the flag"));
+			assertEquals(parent, repo.findGametype(Games.UNREAL_TOURNAMENT, "CTF"));
+			assertEquals(variation, repo.findGametype(Games.UNREAL_TOURNAMENT, "Instagib CTF"));
+			assertNull(repo.findGametype(Games.UNREAL_TOURNAMENT_2004, "Capture The Flag"));
+			assertNull(repo.findGametype(Games.UNREAL_TOURNAMENT, "Assault"));
+
+			assertEquals(Set.of(variation), repo.variations(parent));
+			assertTrue(repo.variations(variation).isEmpty());
+
+			// replacing a gametype updates lookups
+			final GameType updated = YAML.fromString(YAML.toString(parent), GameType.class);
+			updated.altNames.clear();
+			updated.altNames.add("Flags");
+			repo.put(updated);
+
+			assertEquals(2, repo.size());
+			assertEquals(updated, repo.findGametype(Games.UNREAL_TOURNAMENT, "Flags"));
+			assertNull(repo.findGametype(Games.UNREAL_TOURNAMENT, "CTF"));
+		} finally {
+			ArchiveUtil.cleanPath(tmpRoot);
+		}
+	}
+
+	@Test
+	public void putChangedGametype() throws IOException {
+		final Path tmpRoot = Files.createTempDirectory("test-gametypes");
+		try {
+			final Path path = Files.createDirectories(tmpRoot.resolve("Unreal Tournament").resolve("capture-the-flag"));
+			Files.writeString(path.resolve("gametype.yml"), YAML.toString(gameType("Capture The Flag", "CTF")));
+
+			final GameTypeRepository repo = new GameTypeRepository.FileRepository(tmpRoot);
+
+			// change the instance held by the repository, as when adding a release, and put it again
+			final GameType found = repo.findGametype(Games.UNREAL_TOURNAMENT, "Capture The Flag");
+			found.releases.add(new GameType.Release());
+			found.altNames.add("Flags");
+			repo.put(found);
+
+			assertEquals(1, repo.size());
+			assertEquals(Set.of(found), repo.all());
+			assertSame(found, repo.findGametype(Games.UNREAL_TOURNAMENT, "Flags"));
+			assertSame(found, repo.findGametype(Games.UNREAL_TOURNAMENT, "CTF"));
+
+			found.altNames.remove("CTF");
+			repo.put(found);
+
+			assertEquals(1, repo.size());
+			assertNull(repo.findGametype(Games.UNREAL_TOURNAMENT, "CTF"));
+			assertSame(found, repo.findGametype(Games.UNREAL_TOURNAMENT, "Flags"));
+		} finally {
+			ArchiveUtil.cleanPath(tmpRoot);
+		}
+	}
+
+	private GameType gameType(String name, String... altNames) {
+		final GameType gt = new GameType();
+		gt.game = Games.UNREAL_TOURNAMENT.name;
+		gt.name = name;
+		gt.author = "Epic Games";
+		gt.altNames.addAll(Set.of(altNames));
+		return gt;
+	}
+}
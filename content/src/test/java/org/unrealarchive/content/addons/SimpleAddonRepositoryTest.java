@@ -2,10 +2,23 @@ package org.unrealarchive.content.addons;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class SimpleAddonRepositoryTest {
 
@@ -22,6 +35,269 @@ public class SimpleAddonRepositoryTest {
 		assertEquals(1, repo.filter("skins", "*Something*").size());
 	}
 
+	@Test
+	public void queryTest() throws IOException {
+		SimpleAddonRepository repo = new SimpleAddonRepository.FileRepository(Files.createTempDirectory("ua_test"));
+		testData(repo);
+
+		assertEquals(1, repo.filter("game", "unreal tournament", "author", "bob").size());
+		assertEquals(0, repo.filter("game", "unreal tournament", "author", "bo").size());
+		assertEquals(1, repo.filter("author", "Various", "contentType", "MAP_PACK").size());
+		assertEquals(3, repo.filter("deleted", "false").size());
+		assertEquals(3, repo.filter("fileSize", "0").size());
+		assertEquals(0, repo.filter("fileSize", "00").size());
+		assertEquals(1, repo.filter("gametype", "Capture*").size());
+		assertEquals(0, repo.filter("nonsense", "value").size());
+		assertThrows(IllegalArgumentException.class, () -> repo.filter("game"));
+	}
+
+	@Test
+	public void snapshotTest() throws IOException {
+		Path root = Files.createTempDirectory("ua_test");
+		Path snapshot = root.resolve("snapshot.bin");
+		Path content = Files.createDirectories(root.resolve("content"));
+
+		SimpleAddonRepository repo = new SimpleAddonRepository.FileRepository(content);
+		testData(repo);
+
+		// initial load writes the snapshot
+		SimpleAddonRepository snapRepo = new SimpleAddonRepository.FileRepository(content, snapshot);
+		assertTrue(Files.exists(snapshot));
+		assertEquals(repo.size(), snapRepo.size());
+		assertEquals(repo.forHash("10000000"), snapRepo.forHash("10000000"));
+
+		// change something, the changed file should be used rather than the snapshot record
+		Addon changed = repo.forHash("30000000");
+		changed.author = "Someone Else Entirely";
+		repo.put(changed);
+
+		snapRepo = new SimpleAddonRepository.FileRepository(content, snapshot);
+		assertEquals(3, snapRepo.size());
+		assertEquals("Someone Else Entirely", snapRepo.forHash("30000000").author);
+		assertEquals(2, snapRepo.search(null, null, "Deck", null).size());
+	}
+
+	@Test
+	public void indexTest() throws IOException {
+		SimpleAddonRepository repo = new SimpleAddonRepository.FileRepository(Files.createTempDirectory("ua_test"));
+		testData(repo);
+
+		assertEquals(1, repo.search("unreal tournament", "map", null, null).size());
+		assertEquals(2, repo.search(null, null, "deck", null).size());
+		assertEquals(1, repo.search(null, null, null, "bo").size());
+		assertEquals(0, repo.search(null, null, null, "bob dude").size());
+		assertEquals(1, repo.forName("ctf-deckunlimited").size());
+		assertEquals(1, repo.get(Map.class).size());
+		assertEquals(3, repo.get(Addon.class).size());
+		assertEquals(2, repo.countByGame().get("Unreal Tournament").intValue());
+		assertEquals(1, repo.countByType("Unreal Tournament 3").get(Skin.class).intValue());
+		assertEquals(3, repo.stream(false, true).count());
+		assertEquals(1, repo.stream(MapPack.class, false, false).count());
+
+		// indexes follow changes to existing content
+		Addon changed = repo.forHash("10000000");
+		changed.author = "Robert";
+		changed.name = "CTF-Renamed";
+		repo.put(changed);
+
+		assertEquals(0, repo.search(null, null, null, "bob").size());
+		assertEquals(1, repo.search(null, null, null, "rob").size());
+		assertEquals(0, repo.forName("CTF-DeckUnlimited").size());
+		assertEquals(1, repo.forName("CTF-Renamed").size());
+
+		// deleted content is removed from indexes by gc
+		changed.deleted = true;
+		repo.put(changed);
+		assertEquals(1, repo.search(null, null, null, "rob").size());
+		repo.gc();
+		assertEquals(0, repo.search(null, null, null, "rob").size());
+		assertEquals(0, repo.get(Map.class, true, true).size());
+		assertEquals(1, repo.countByGame().get("Unreal Tournament").intValue());
+	}
+
+	@Test
+	public void cacheTest() throws IOException {
+		Path content = Files.createTempDirectory("ua_test");
+		testData(new SimpleAddonRepository.FileRepository(content));
+
+		SimpleAddonRepository.FileRepository repo = new SimpleAddonRepository.FileRepository(content, null, AddonCache.lru(2), null);
+		assertEquals(2, repo.cacheStats().size());
+
+		// at least one item will have been evicted during loading, and must be reloaded
+		repo.forHash("10000000");
+		repo.forHash("20000000");
+		repo.forHash("30000000");
+		AddonCache.Stats stats = repo.cacheStats();
+		assertEquals(3, stats.hits() + stats.misses());
+		assertTrue(stats.misses() >= 1);
+		assertEquals(stats.misses(), stats.reloads());
+
+		assertEquals("Dude", repo.forHash("30000000").author);
+		assertEquals(2, repo.cacheStats().size());
+	}
+
+	@Test
+	public void compactTest() throws IOException {
+		Path content = Files.createTempDirectory("ua_test");
+		SimpleAddonRepository plain = new SimpleAddonRepository.FileRepository(content);
+		testData(plain);
+
+		// both the map and map pack contain the same file
+		Addon.ContentFile shared = new Addon.ContentFile("CTF-DeckUnlimited.unr", 1234, "abcdef");
+		for (String hash : new String[] { "10000000", "20000000" }) {
+			Addon addon = plain.forHash(hash);
+			addon.files.add(new Addon.ContentFile(shared.name, shared.fileSize, shared.hash));
+			plain.put(addon);
+		}
+
+		AddonCompactor compactor = new AddonCompactor();
+		SimpleAddonRepository repo = new SimpleAddonRepository.FileRepository(content, null, AddonCache.soft(), compactor);
+
+		assertSame(repo.forHash("10000000").files.get(0), repo.forHash("20000000").files.get(0));
+		assertSame(repo.forHash("10000000").game, repo.forHash("20000000").game);
+		assertTrue(compactor.savedBytes() > 0);
+
+		for (String hash : new String[] { "10000000", "20000000", "30000000" }) {
+			assertEquals(plain.forHash(hash), repo.forHash(hash));
+		}
+
+		// compaction retains the original ordering of keyed values
+		Map ordered = concurrentMap("60000000", "DM-Ordered");
+		ordered.themes = new LinkedHashMap<>();
+		for (String theme : new String[] { "Industrial", "Tech", "Ancient", "Natural" }) ordered.themes.put(theme, 0.25);
+		compactor.compact(ordered);
+		assertEquals(List.of("Industrial", "Tech", "Ancient", "Natural"), List.copyOf(ordered.themes.keySet()));
+	}
+
+	@Test
+	public void concurrentPutTest() throws Exception {
+		Path content = Files.createTempDirectory("ua_test");
+		SimpleAddonRepository repo = new SimpleAddonRepository.FileRepository(content);
+		testData(repo);
+
+		final int threads = 8;
+		final int iterations = 20;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> tasks = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				final int thread = t;
+				tasks.add(executor.submit(() -> {
+					for (int i = 0; i < iterations; i++) {
+						// content unique to this thread, and content shared between all threads
+						repo.put(concurrentMap(String.format("4%07d", thread), "Map-" + thread + "-" + i, "shared", "file" + i));
+						repo.put(concurrentMap("50000000", "Map-" + thread + "-" + i, "own" + thread));
+					}
+					return null;
+				}));
+			}
+			for (Future<?> task : tasks) task.get();
+		} finally {
+			executor.shutdown();
+		}
+
+		assertEquals(threads, repo.containingFileCount("shared"));
+		assertEquals(threads, repo.containingFileCount("file" + (iterations - 1)));
+		assertEquals(0, repo.containingFileCount("file0"));
+
+		int owners = 0;
+		for (int t = 0; t < threads; t++) owners += repo.containingFileCount("own" + t);
+		assertEquals(1, owners);
+
+		// a fresh load from disk should agree with the incrementally maintained indexes
+		SimpleAddonRepository reloaded = new SimpleAddonRepository.FileRepository(content);
+		assertEquals(repo.size(), reloaded.size());
+		assertEquals(repo.containingFile("shared"), reloaded.containingFile("shared"));
+		assertEquals(repo.forHash("50000000"), reloaded.forHash("50000000"));
+	}
+
+	@Test
+	public void variationsTest() throws IOException {
+		SimpleAddonRepository repo = new SimpleAddonRepository.FileRepository(Files.createTempDirectory("ua_test"));
+		testData(repo);
+
+		Map variation = concurrentMap("60000000", "CTF-DeckUnlimited-Fixed", "variation");
+		variation.variationOf = "10000000";
+		repo.put(variation);
+		assertEquals(1, repo.variationsOf("10000000").size());
+
+		Addon parent = repo.forHash("10000000");
+		parent.deleted = true;
+		repo.put(parent);
+		repo.gc();
+
+		assertEquals(0, repo.variationsOf("10000000").size());
+		assertEquals(0, repo.containingFileCount("variation"));
+		assertNull(repo.forHash("60000000"));
+	}
+
+	@Test
+	public void batchTest() throws IOException {
+		Path content = Files.createTempDirectory("ua_test");
+		SimpleAddonRepository repo = new SimpleAddonRepository.FileRepository(content);
+		testData(repo);
+
+		try (SimpleAddonRepository.WriteBatch batch = repo.batch(true)) {
+			Addon renamed = repo.forHash("10000000");
+			renamed.name = "CTF-Renamed";
+			batch.put(renamed);
+			batch.put(concurrentMap("70000000", "DM-Batched", "batched"));
+
+			// nothing is visible until committed
+			assertNull(repo.forHash("70000000"));
+			assertEquals(2, batch.commit());
+		}
+
+		assertEquals("CTF-Renamed", repo.forHash("10000000").name);
+		assertEquals(1, repo.containingFileCount("batched"));
+
+		// uncommitted content is discarded
+		try (SimpleAddonRepository.WriteBatch batch = repo.batch(false)) {
+			batch.put(concurrentMap("80000000", "DM-Discarded", "discarded"));
+		}
+		assertNull(repo.forHash("80000000"));
+
+		// no temporary or stale files are left behind, so a fresh load matches
+		try (Stream<Path> files = Files.walk(content)) {
+			assertEquals(4, files.filter(Files::isRegularFile).count());
+		}
+		SimpleAddonRepository reloaded = new SimpleAddonRepository.FileRepository(content);
+		assertEquals(repo.forHash("10000000"), reloaded.forHash("10000000"));
+		assertEquals(repo.forHash("70000000"), reloaded.forHash("70000000"));
+	}
+
+	@Test
+	public void unchangedTest() throws IOException {
+		Path content = Files.createTempDirectory("ua_test");
+		SimpleAddonRepository repo = new SimpleAddonRepository.FileRepository(content);
+		testData(repo);
+
+		Addon same = repo.forHash("10000000");
+		assertTrue(repo.unchanged(same));
+
+		Addon changed = repo.forHash("20000000");
+		changed.description = "Something new";
+		assertFalse(repo.unchanged(changed));
+		assertFalse(repo.unchanged(concurrentMap("90000000", "DM-Unknown")));
+
+		// fingerprints are also available when loading from files and snapshots
+		assertTrue(new SimpleAddonRepository.FileRepository(content).unchanged(same));
+		Path snapshot = content.resolveSibling(content.getFileName() + ".snapshot");
+		new SimpleAddonRepository.FileRepository(content, snapshot);
+		assertTrue(new SimpleAddonRepository.FileRepository(content, snapshot).unchanged(same));
+	}
+
+	private static Map concurrentMap(String hash, String name, String... fileHashes) {
+		Map m = new Map();
+		m.contentType = "MAP";
+		m.game = "Unreal Tournament";
+		m.author = "Tester";
+		m.name = name;
+		m.hash = hash;
+		for (String f : fileHashes) m.files.add(new Addon.ContentFile(f + ".u", 1, f));
+		return m;
+	}
+
 	public void testData(SimpleAddonRepository repo) throws IOException {
 		Map m = new Map();
 		m.contentType = "MAP";
@@ -0,0 +1,121 @@
+package org.unrealarchive.content.wiki;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.module.FindException;
+import java.lang.module.ModuleFinder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.unrealarchive.common.ArchiveUtil;
+import org.unrealarchive.common.YAML;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WikiRepositoryTest {
+
+	@Test
+	public void lazyPages() throws IOException {
+		final Path tmpRoot = Files.createTempDirectory("test-wikis");
+		try {
+			final Path wikiPath = Files.createDirectories(tmpRoot.resolve("wikis").resolve("testwiki"));
+			final WikiRepository.Wiki testWiki = new WikiRepository.Wiki();
+			testWiki.name = "Test Wiki";
+			testWiki.publish = true;
+			testWiki.skipCategories = Set.of("Junk");
+			testWiki.skipTemplates = Set.of("Stub");
+			Files.writeString(wikiPath.resolve("wiki.yml"), YAML.toString(testWiki));
+
+			final Path content = Files.createDirectories(wikiPath.resolve("content"));
+			Files.writeString(content.resolve("Home.yml"), YAML.toString(page("Home", "Good", "Infobox", "Hello")));
+			Files.writeString(content.resolve("Junk.yml"), YAML.toString(page("Junk", "Junk", "Infobox", "Rubbish")));
+			Files.writeString(content.resolve("Short.yml"), YAML.toString(page("Short", "Good", "Stub", "Hi")));
+			Files.writeString(content.resolve("Start.yml"), YAML.toString(page("Start", "Good", "Infobox", "#REDIRECT [[Home]]")));
+
+			final Path indexPath = tmpRoot.resolve("index");
+			for (int i = 0; i < 2; i++) {
+				// load once to create the index, and again to read from it
+				final WikiRepository repo = new WikiRepository.FileRepository(tmpRoot.resolve("wikis"), indexPath);
+				assertTrue(Files.exists(indexPath.resolve("testwiki.idx")));
+
+				final WikiRepository.Wiki wiki = repo.wiki("Test Wiki");
+				assertNotNull(wiki);
+				assertEquals(4, repo.size());
+				assertEquals("Home", wiki.redirects.get("Start"));
+
+				final Set<WikiPage> published = wiki.pages(wiki::publishable);
+				assertEquals(1, published.size());
+				assertEquals("Hello", published.iterator().next().parse.text.text);
+				assertEquals(3, wiki.all().size());
+			}
+		} finally {
+			ArchiveUtil.cleanPath(tmpRoot);
+		}
+	}
+
+	@Test
+	public void modulePathPages() throws IOException, InterruptedException {
+		// the applications run as named modules, where Jackson may only reach what the content module exposes
+		final Path tmpRoot = Files.createTempDirectory("test-wikis");
+		try {
+			final Path wikiPath = Files.createDirectories(tmpRoot.resolve("wikis").resolve("testwiki"));
+			final WikiRepository.Wiki testWiki = new WikiRepository.Wiki();
+			testWiki.name = "Test Wiki";
+			Files.writeString(wikiPath.resolve("wiki.yml"), YAML.toString(testWiki));
+
+			final Path content = Files.createDirectories(wikiPath.resolve("content"));
+			Files.writeString(content.resolve("Home.yml"), YAML.toString(page("Home", "Good", "Infobox", "Hello")));
+			Files.writeString(content.resolve("Start.yml"), YAML.toString(page("Start", "Good", "Infobox", "#REDIRECT [[Home]]")));
+
+			final Path source = Files.writeString(tmpRoot.resolve("LoadWiki.java"), """
+				public class LoadWiki {
+					public static void main(String[] args) throws Exception {
+						var repo = new org.unrealarchive.content.wiki.WikiRepository.FileRepository(java.nio.file.Path.of(args[0]));
+						System.out.print(repo.wiki("Test Wiki").redirects.get("Start"));
+					}
+				}
+				""");
+
+			// run with the content module, and everything it requires, on the module path
+			final String modulePath = Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+											.filter(WikiRepositoryTest::isModule)
+											.collect(Collectors.joining(File.pathSeparator));
+			final Process process = new ProcessBuilder(
+				Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+				"--module-path", modulePath, "--add-modules", "unreal.archive.content",
+				source.toString(), tmpRoot.resolve("wikis").toString()
+			).redirectErrorStream(true).start();
+
+			final String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+			assertEquals(0, process.waitFor(), output);
+			assertTrue(output.endsWith("Home"), output);
+		} finally {
+			ArchiveUtil.cleanPath(tmpRoot);
+		}
+	}
+
+	private static boolean isModule(String path) {
+		try {
+			return !path.isBlank() && !ModuleFinder.of(Path.of(path)).findAll().isEmpty();
+		} catch (FindException e) {
+			return false;
+		}
+	}
+
+	private WikiPage page(String name, String category, String template, String text) {
+		WikiPage.WikiParse parse = new WikiPage.WikiParse(
+			name, 1, new WikiPage.WikiText(null, text),
+			Set.of(new WikiPage.WikiCategory(null, null, category)), Set.of(),
+			Set.of(new WikiPage.WikiTemplate(10, "true", null, template)), Set.of(), Set.of(), List.of(),
+			name, Set.of(), new WikiPage.WikiText(null, text), Set.of()
+		);
+		return new WikiPage(parse, name, null, null);
+	}
+}
@@ -28,9 +28,11 @@ import java.util.stream.Stream;
 import net.shrimpworks.unreal.packages.Umod;
 
 import org.unrealarchive.common.CLI;
+import org.unrealarchive.common.HashCache;
 import org.unrealarchive.common.Util;
 import org.unrealarchive.common.Version;
 import org.unrealarchive.common.YAML;
+import org.unrealarchive.content.ChangeJournal;
 import org.unrealarchive.content.FileType;
 import org.unrealarchive.content.Games;
 import org.unrealarchive.content.addons.Addon;
@@ -40,15 +42,20 @@ import org.unrealarchive.content.addons.SimpleAddonRepository;
 import org.unrealarchive.content.addons.SimpleAddonType;
 import org.unrealarchive.content.managed.ManagedContentRepository;
 import org.unrealarchive.content.wiki.WikiRepository;
+import org.unrealarchive.indexing.AnalysisCache;
 import org.unrealarchive.indexing.ContentEditor;
 import org.unrealarchive.indexing.ContentManager;
+import org.unrealarchive.indexing.DependencyCache;
 import org.unrealarchive.indexing.GameTypeManager;
 import org.unrealarchive.indexing.Incoming;
+import org.unrealarchive.indexing.IndexContext;
 import org.unrealarchive.indexing.IndexLog;
 import org.unrealarchive.indexing.Indexer;
 import org.unrealarchive.indexing.ManagedContentManager;
+import org.unrealarchive.indexing.PendingUploads;
 import org.unrealarchive.indexing.Scanner;
 import org.unrealarchive.indexing.Submission;
+import org.unrealarchive.indexing.UploadQueue;
 import org.unrealarchive.mirror.LocalMirrorClient;
 import org.unrealarchive.mirror.Mirror;
 import org.unrealarchive.storage.DataStore;
@@ -72,48 +79,87 @@ public class Main {
 			System.exit(1);
 		}
 
-		switch (cli.commands()[0].toLowerCase()) {
-			case "index" -> {
-				SimpleAddonRepository indexRepo = contentRepo(cli);
-				index(indexRepo, contentManager(cli, indexRepo), cli);
-			}
-			case "scan" -> scan(contentRepo(cli), cli);
-			case "edit" -> edit(contentManager(cli, contentRepo(cli)), cli);
-			case "set" -> set(contentManager(cli, contentRepo(cli)), cli);
-			case "gametype" -> {
-				GameTypeRepository gameTypeRepo = gameTypeRepo(cli);
-				gametype(gameTypeRepo, gameTypeManager(cli, gameTypeRepo), cli);
-			}
-			case "managed" -> {
-				ManagedContentRepository managedRepo = managedRepo(cli);
-				managed(managedRepo, managedContentManager(cli, managedRepo), cli);
-			}
-			case "mirror" -> {
-				SimpleAddonRepository mirrorRepo = contentRepo(cli);
-				GameTypeRepository gameTypeMirrorRepo = gameTypeRepo(cli);
-				ManagedContentRepository managedMirrorRepo = managedRepo(cli);
-				mirror(mirrorRepo, contentManager(cli, mirrorRepo),
-					   gameTypeMirrorRepo, gameTypeManager(cli, gameTypeMirrorRepo),
-					   managedMirrorRepo, managedContentManager(cli, managedMirrorRepo),
-					   cli);
-			}
-			case "local-mirror" -> localMirror(contentRepo(cli), cli);
-			case "summary" -> System.out.println(contentRepo(cli).summary());
-			case "ls" -> list(contentRepo(cli), cli);
-			case "filter" -> filter(contentRepo(cli), cli);
-			case "show" -> show(contentRepo(cli), cli);
-			case "unpack" -> unpack(cli);
-			case "install" -> install(contentRepo(cli), cli);
-			case "wiki" -> wiki(wikiRepo(cli));
-			default -> {
-				System.out.printf("Command \"%s\" does not exist!%n%n", cli.commands()[0]);
-				usage();
+		// caches shared while processing content are closed once the command completes
+		try (IndexContext context = indexContext(cli)) {
+			switch (cli.commands()[0].toLowerCase()) {
+				case "index" -> {
+					SimpleAddonRepository indexRepo = contentRepo(cli);
+					index(indexRepo, contentManager(cli, indexRepo), context, cli);
+				}
+				case "scan" -> scan(contentRepo(cli), context, cli);
+				case "edit" -> edit(contentManager(cli, contentRepo(cli)), cli);
+				case "set" -> set(contentManager(cli, contentRepo(cli)), cli);
+				case "gametype" -> {
+					GameTypeRepository gameTypeRepo = gameTypeRepo(cli);
+					gametype(gameTypeRepo, gameTypeManager(cli, context, gameTypeRepo), cli);
+				}
+				case "managed" -> {
+					ManagedContentRepository managedRepo = managedRepo(cli);
+					managed(managedRepo, managedContentManager(cli, context, managedRepo), cli);
+				}
+				case "mirror" -> {
+					Repositories repos = bootstrap(cli, Repo.CONTENT, Repo.GAMETYPES, Repo.MANAGED);
+					SimpleAddonRepository mirrorRepo = repos.content();
+					GameTypeRepository gameTypeMirrorRepo = repos.gameTypes();
+					ManagedContentRepository managedMirrorRepo = repos.managed();
+					mirror(mirrorRepo, contentManager(cli, mirrorRepo),
+						   gameTypeMirrorRepo, gameTypeManager(cli, context, gameTypeMirrorRepo),
+						   managedMirrorRepo, managedContentManager(cli, context, managedMirrorRepo),
+						   cli);
+				}
+				case "local-mirror" -> localMirror(contentRepo(cli), cli);
+				case "summary" -> System.out.println(contentRepo(cli).summary());
+				case "ls" -> list(contentRepo(cli), cli);
+				case "filter" -> filter(contentRepo(cli), cli);
+				case "show" -> show(contentRepo(cli), cli);
+				case "unpack" -> unpack(cli);
+				case "install" -> install(contentRepo(cli), cli);
+				case "wiki" -> wiki(wikiRepo(cli));
+				case "changes" -> changes(cli);
+				default -> {
+					System.out.printf("Command \"%s\" does not exist!%n%n", cli.commands()[0]);
+					usage();
+				}
 			}
 		}
 
 		System.exit(0);
 	}
 
+	public static IndexContext indexContext(CLI cli) throws IOException {
+		// optional persistent cache of file hashes, so unchanged files need not be re-hashed
+		final String hashCache = cli.option("hash-cache", System.getenv("UA_HASH_CACHE"));
+		final HashCache hashes = hashCache != null ? HashCache.open(Paths.get(hashCache)) : HashCache.NONE;
+
+		// optional persistent cache of facts derived from files within content, so they need not be analysed again
+		final String analysisCache = cli.option("analysis-cache", System.getenv("UA_ANALYSIS_CACHE"));
+		final AnalysisCache analysis = analysisCache != null ? AnalysisCache.open(Paths.get(analysisCache)) : AnalysisCache.NONE;
+
+		// dependencies of packages seen before are re-used rather than resolved again
+		final DependencyCache dependencies = new DependencyCache(
+			Integer.parseInt(cli.option("dependency-cache", String.valueOf(DependencyCache.DEFAULT_SIZE)))
+		);
+
+		// archives smaller than this are read into memory while indexing, rather than extracted to disk
+		final long memoryLimit = Long.parseLong(cli.option("in-memory-limit", String.valueOf(Incoming.DEFAULT_MEMORY_LIMIT / 1024 / 1024)))
+								 * 1024 * 1024;
+
+		return new IndexContext(hashes, analysis, dependencies, memoryLimit);
+	}
+
+	private static void changes(CLI cli) throws IOException {
+		if (cli.option("change-journal", null) == null) {
+			System.err.println("A change journal must be specified via --change-journal=<file>");
+			System.exit(2);
+		}
+
+		ChangeJournal.Changes changes = changeJournal(cli).since(Long.parseLong(cli.option("since", "0")));
+		for (ChangeJournal.Change change : changes.changes()) {
+			System.out.printf("%s\t%s\t%s\t%s%n", change.timestamp(), change.operation(), change.type(), change.id());
+		}
+		System.err.printf("Read %d changes, next position is %d%n", changes.changes().size(), changes.position());
+	}
+
 	private static void wiki(WikiRepository cli) throws IOException {
 		// nothing to do yet
 	}
@@ -132,10 +178,20 @@ public class Main {
 			}
 		}));
 
-		return new ContentManager(repo, contentStore, imageStore);
+		final UploadQueue uploads = new UploadQueue(
+			Integer.parseInt(cli.option("store-concurrency", String.valueOf(UploadQueue.DEFAULT_CONCURRENCY))),
+			Integer.parseInt(cli.option("upload-attempts", String.valueOf(UploadQueue.DEFAULT_ATTEMPTS))),
+			UploadQueue.DEFAULT_RETRY_DELAY
+		);
+		final String pendingPath = cli.option("pending-uploads", null);
+		final PendingUploads pending = pendingPath == null
+			? PendingUploads.NONE
+			: new PendingUploads(Paths.get(pendingPath).toAbsolutePath());
+
+		return new ContentManager(repo, contentStore, imageStore, changeJournal(cli), uploads, pending);
 	}
 
-	private static ManagedContentManager managedContentManager(CLI cli, ManagedContentRepository repo) {
+	private static ManagedContentManager managedContentManager(CLI cli, IndexContext context, ManagedContentRepository repo) {
 		final DataStore contentStore = store(DataStore.StoreContent.CONTENT, cli);
 
 		// prepare cleanup
@@ -146,10 +202,10 @@ public class Main {
 				//
 			}
 		}));
-		return new ManagedContentManager(repo, contentStore);
+		return new ManagedContentManager(repo, contentStore, changeJournal(cli), context);
 	}
 
-	private static GameTypeManager gameTypeManager(CLI cli, GameTypeRepository repo) {
+	private static GameTypeManager gameTypeManager(CLI cli, IndexContext context, GameTypeRepository repo) {
 		final DataStore imageStore = store(DataStore.StoreContent.IMAGES, cli);
 		final DataStore contentStore = store(DataStore.StoreContent.CONTENT, cli);
 
@@ -162,7 +218,12 @@ public class Main {
 				//
 			}
 		}));
-		return new GameTypeManager(repo, contentStore, imageStore);
+		return new GameTypeManager(repo, contentStore, imageStore, changeJournal(cli), context);
+	}
+
+	private static ChangeJournal changeJournal(CLI cli) {
+		String journal = cli.option("change-journal", null);
+		return journal == null ? ChangeJournal.NONE : new ChangeJournal(Paths.get(journal).toAbsolutePath());
 	}
 
 	public static DataStore store(DataStore.StoreContent contentType, CLI cli) {
@@ -182,7 +243,8 @@ public class Main {
 		return dataStore;
 	}
 
-	private static void index(SimpleAddonRepository repo, ContentManager contentManager, CLI cli) throws IOException {
+	private static void index(SimpleAddonRepository repo, ContentManager contentManager, IndexContext context, CLI cli)
+		throws IOException {
 		if (cli.commands().length < 2) {
 			System.err.println("An index path must be specified!");
 			System.exit(2);
@@ -192,12 +254,23 @@ public class Main {
 		boolean force = Boolean.parseBoolean(cli.option("force", "false"));
 		boolean newOnly = Boolean.parseBoolean(cli.option("new-only", "true"));
 		int concurrency = Integer.parseInt(cli.option("concurrency", "1"));
+		Indexer.Pipeline pipeline = Indexer.Pipeline.of(concurrency);
+		for (Indexer.Stage stage : Indexer.Stage.values()) {
+			if (stage == Indexer.Stage.DISCOVER) continue;
+			String name = stage.name().toLowerCase();
+			if (!cli.option(name + "-concurrency", "").isEmpty()) {
+				pipeline.concurrency(stage, Integer.parseInt(cli.option(name + "-concurrency", "")));
+			}
+			if (!cli.option(name + "-queue", "").isEmpty()) {
+				pipeline.capacity(stage, Integer.parseInt(cli.option(name + "-queue", "")));
+			}
+		}
 		SimpleAddonType forceType = !cli.option("type", "").isEmpty()
 			? SimpleAddonType.valueOf(cli.option("type", "").toUpperCase())
 			: null;
 		Games forceGame = !cli.option("game", "").isEmpty() ? Games.byName(cli.option("game", "")) : null;
 
-		Indexer indexer = new Indexer(repo, contentManager, new Indexer.CLIEventPrinter(verbose));
+		Indexer indexer = new Indexer(repo, contentManager, new Indexer.CLIEventPrinter(verbose), context);
 
 		Path[] paths;
 
@@ -220,16 +293,20 @@ public class Main {
 			paths = cliPaths(cli, 1, contentManager.repo()).toArray(Path[]::new);
 		}
 
-		indexer.index(force, newOnly, concurrency, forceType, forceGame, paths);
+		// complete any uploads which failed during a previous run
+		int resumed = contentManager.resume();
+		if (resumed > 0) System.out.printf("Resumed uploads for %d previously indexed file(s)%n", resumed);
+
+		indexer.index(force, newOnly, pipeline, forceType, forceGame, paths);
 	}
 
-	private static void scan(SimpleAddonRepository repository, CLI cli) throws IOException {
+	private static void scan(SimpleAddonRepository repository, IndexContext context, CLI cli) throws IOException {
 		if (cli.commands().length < 2) {
 			System.err.println("An input path must be specified!");
 			System.exit(2);
 		}
 
-		Scanner scanner = new Scanner(repository, cli);
+		Scanner scanner = new Scanner(repository, cli, context);
 
 		Path[] paths = cliPaths(cli, 1, repository).toArray(Path[]::new);
 
@@ -807,6 +884,12 @@ public class Main {
 		System.out.println("  index <file, url ...> [--content-path=<path> | --content-download] [--force=<true|false>]");
 		System.out.println("    Index the contents of files or paths, writing the results to <content-path>.");
 		System.out.println("    Optionally force re-indexing of existing content, rather than skipping it.");
+		System.out.println("    Use --concurrency=<count> to set the number of workers for each indexing stage, or");
+		System.out.println("    --<stage>-concurrency=<count> and --<stage>-queue=<size> to configure individual");
+		System.out.println("    stages, where <stage> is one of hash, extract, index, upload or commit.");
+		System.out.println("    Uploads are retried up to --upload-attempts=<count> times, with up to");
+		System.out.println("    --store-concurrency=<count> in progress at once. Content whose uploads fail is kept in");
+		System.out.println("    --pending-uploads=<path> if specified, and its uploads are resumed by the next index run.");
 		System.out.println("  sync <kind> [--content-path=<path> | --content-download]");
 		System.out.println("    Sync managed files' local files to remote storage.");
 		System.out.println("  scan <file, url ...> [--content-path=<path> | --content-download]");
@@ -835,5 +918,23 @@ public class Main {
 		System.out.println("    provided. Files will be placed into appropriate sub-directories by file type,");
 		System.out.println("    eg. Maps, System, Textures, etc. If <hash> is provided, content will be downloaded");
 		System.out.println("    first and then installed. Supports unpacking of UMOD files");
+		System.out.println("  changes --change-journal=<file> [--since=<position>]");
+		System.out.println("    List content changes recorded in the change journal <file>, optionally only those");
+		System.out.println("    following <position>, as reported by a previous invocation.");
+		System.out.println();
+		System.out.println("Options:");
+		System.out.println("  --hash-cache=<file>");
+		System.out.println("    Cache file hashes in <file>, re-using them while files remain unchanged. May also be");
+		System.out.println("    set via the UA_HASH_CACHE environment variable.");
+		System.out.println("  --analysis-cache=<file>");
+		System.out.println("    Cache facts derived from analysing files within content in <file>, keyed by file");
+		System.out.println("    hash, re-using them for identical files. May also be set via the UA_ANALYSIS_CACHE");
+		System.out.println("    environment variable.");
+		System.out.println("  --in-memory-limit=<megabytes>");
+		System.out.println("    Read zip files with up to <megabytes> of content into memory while indexing, rather");
+		System.out.println("    than extracting them to disk. 0 disables reading into memory. Defaults to 16.");
+		System.out.println("  --dependency-cache=<count>");
+		System.out.println("    Retain up to <count> package dependency resolution results, re-using them for");
+		System.out.println("    identical packages. 0 disables the cache. Defaults to 10000.");
 	}
 }
@@ -3,6 +3,7 @@ package org.unrealarchive.indexing;
 import java.lang.reflect.InvocationTargetException;
 import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.Set;
 
 import org.unrealarchive.common.Util;
 import org.unrealarchive.content.FileType;
@@ -83,9 +84,12 @@ public class AddonClassifier {
 				newInstance.game = incoming.submission.override.get("game", "Unknown");
 				newInstance.author = incoming.submission.override.get("author", "Unknown");
 
+				Set<Incoming.IncomingFile> files = incoming.files(FileType.ALL);
+				incoming.prefetch(files.stream().filter(f -> FileType.important(f.file)).toList());
+
 				LocalDateTime releaseDate = null;
 				// populate list of interesting files
-				for (Incoming.IncomingFile f : incoming.files(FileType.ALL)) {
+				for (Incoming.IncomingFile f : files) {
 					if (!FileType.important(f.file)) {
 						newInstance.otherFiles++;
 						continue;
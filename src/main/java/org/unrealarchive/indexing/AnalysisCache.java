@@ -0,0 +1,292 @@
+package org.unrealarchive.indexing;
+
+import java.beans.ConstructorProperties;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import org.unrealarchive.common.JSON;
+import org.unrealarchive.indexing.maps.MapIndexHandler;
+
+/**
+ * A persistent cache of facts derived from analysing individual files within
+ * content, keyed by each file's SHA-1 hash (as also recorded as
+ * {@link org.unrealarchive.content.addons.Addon.ContentFile#hash}).
+ * <p>
+ * The same packages are distributed within many different archives, so
+ * recording the results of expensive analysis allows re-indexing to skip it
+ * for files seen before. Only facts which depend solely on a file's own
+ * content may be recorded here.
+ * <p>
+ * The cache is stored as an append-only file of JSON lines, with later lines
+ * for the same hash replacing earlier ones. Superseded lines are discarded
+ * when the cache is next opened.
+ * <p>
+ * The first line of the file identifies the version of the rules facts were
+ * derived by, as per {@link #rules()}. If those rules have changed since the
+ * cache was written, all recorded facts are discarded.
+ */
+public class AnalysisCache implements Closeable {
+
+	/**
+	 * A cache which retains nothing, and always performs analysis.
+	 */
+	public static final AnalysisCache NONE = new AnalysisCache(null, Map.of(), null);
+
+	/**
+	 * Version of the cache format. Increment when the meaning of any recorded
+	 * fact changes in a way not captured by {@link #rules()}.
+	 */
+	private static final int SCHEMA = 1;
+
+	private static final String HEADER = "#rules ";
+
+	private final Path file;
+	private final Map<String, Facts> entries;
+	private final FileChannel channel;
+
+	private AnalysisCache(Path file, Map<String, Facts> entries, FileChannel channel) {
+		this.file = file;
+		this.entries = entries;
+		this.channel = channel;
+	}
+
+	/**
+	 * Identify the version of the rules used to derive cached facts; the cache
+	 * format itself, and the parameters of any analysis with cached results.
+	 *
+	 * @return rules fingerprint
+	 */
+	public static String rules() {
+		try {
+			final MessageDigest md = MessageDigest.getInstance("SHA-1");
+			md.update(String.join("\n", String.valueOf(SCHEMA), MapIndexHandler.analysisRules()).getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(md.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Open an analysis cache, creating it if it does not exist.
+	 *
+	 * @param file cache file
+	 * @return an analysis cache
+	 * @throws IOException failed to read or create the cache
+	 */
+	public static AnalysisCache open(Path file) throws IOException {
+		return open(file, rules());
+	}
+
+	/**
+	 * Open an analysis cache, creating it if it does not exist.
+	 *
+	 * @param file  cache file
+	 * @param rules version of the rules facts are derived by; if the cache
+	 *              was written with different rules, its contents are discarded
+	 * @return an analysis cache
+	 * @throws IOException failed to read or create the cache
+	 */
+	public static AnalysisCache open(Path file, String rules) throws IOException {
+		final Map<String, Facts> entries = new ConcurrentHashMap<>();
+		int lines = 0;
+
+		if (Files.exists(file)) {
+			boolean current;
+			try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+				current = (HEADER + rules).equals(reader.readLine());
+				String line;
+				while (current && (line = reader.readLine()) != null) {
+					if (line.isBlank()) continue;
+					try {
+						Facts facts = JSON.fromString(line, Facts.class);
+						if (facts.hash != null) entries.put(facts.hash, facts);
+						lines++;
+					} catch (IOException e) {
+						// skip malformed entry
+					}
+				}
+			}
+
+			// rewrite the cache without superseded entries if there are many of them, or for new rules
+			if (!current || lines > entries.size() * 2L) compact(file, rules, entries);
+		} else {
+			Path parent = file.toAbsolutePath().getParent();
+			if (!Files.isDirectory(parent)) Files.createDirectories(parent);
+			compact(file, rules, entries);
+		}
+
+		return new AnalysisCache(file, entries, FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+	}
+
+	/**
+	 * @param file file to get facts for
+	 * @return known facts for the file, or null if nothing is known
+	 */
+	public Facts get(Incoming.IncomingFile file) {
+		// avoid hashing the file when there's nothing to look up
+		if (this.file == null) return null;
+		return entries.get(file.hash());
+	}
+
+	/**
+	 * Get a single fact about a file, computing and recording it if it is not
+	 * already known.
+	 *
+	 * @param file    file to get the fact for
+	 * @param get     read the fact from known facts, returning null if it is not known
+	 * @param set     record the fact within known facts
+	 * @param compute compute the fact
+	 * @param <T>     fact type
+	 * @return the known or computed fact
+	 */
+	public <T> T get(Incoming.IncomingFile file, Function<Facts, T> get, BiFunction<Facts, T, Facts> set, Supplier<T> compute) {
+		final Facts facts = get(file);
+		final T known = facts == null ? null : get.apply(facts);
+		if (known != null) return known;
+
+		final T value = compute.get();
+		if (value != null) update(file, f -> set.apply(f, value));
+		return value;
+	}
+
+	/**
+	 * Update the facts known about a file.
+	 *
+	 * @param file   file to update facts for
+	 * @param update produces updated facts from those currently known
+	 */
+	public void update(Incoming.IncomingFile file, UnaryOperator<Facts> update) {
+		if (this.file == null) return;
+
+		final String hash = file.hash();
+		final Facts[] changed = { null };
+		entries.compute(hash, (k, v) -> {
+			Facts current = v == null ? new Facts(hash, null, null, null) : v;
+			Facts updated = update.apply(current);
+			if (!updated.equals(v)) changed[0] = updated;
+			return updated;
+		});
+
+		if (changed[0] == null) return;
+
+		try {
+			ByteBuffer line = StandardCharsets.UTF_8.encode(JSON.toString(changed[0]) + "\n");
+			synchronized (channel) {
+				while (line.hasRemaining()) channel.write(line);
+			}
+		} catch (IOException e) {
+			// the fact remains cached for this run, and will be recorded again next time
+		}
+	}
+
+	/**
+	 * @return number of files with cached facts
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (channel != null) channel.close();
+	}
+
+	private static void compact(Path file, String rules, Map<String, Facts> entries) throws IOException {
+		Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+		try {
+			StringBuilder sb = new StringBuilder(HEADER).append(rules).append("\n");
+			for (Facts f : entries.values()) sb.append(JSON.toString(f)).append("\n");
+			Files.writeString(tmp, sb, StandardCharsets.UTF_8);
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("AnalysisCache [file=%s, size=%s]", file, entries.size());
+	}
+
+	/**
+	 * Facts known about a file. Any fact may be null if it has not yet been
+	 * determined.
+	 */
+	public static class Facts {
+
+		public final String hash;
+
+		/**
+		 * Package version.
+		 */
+		public final Integer version;
+
+		/**
+		 * Map themes, as per {@link org.unrealarchive.indexing.maps.MapIndexHandler#themes}.
+		 */
+		public final Map<String, Double> themes;
+
+		/**
+		 * Map bot support, as per {@link org.unrealarchive.indexing.maps.MapIndexHandler#botSupport}.
+		 */
+		public final Boolean bots;
+
+		@ConstructorProperties({ "hash", "version", "themes", "bots" })
+		public Facts(String hash, Integer version, Map<String, Double> themes, Boolean bots) {
+			this.hash = hash;
+			this.version = version;
+			this.themes = themes == null ? null : Map.copyOf(themes);
+			this.bots = bots;
+		}
+
+		public Facts withVersion(Integer version) {
+			return new Facts(hash, version, themes, bots);
+		}
+
+		public Facts withThemes(Map<String, Double> themes) {
+			return new Facts(hash, version, themes, bots);
+		}
+
+		public Facts withBots(Boolean bots) {
+			return new Facts(hash, version, themes, bots);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (!(o instanceof Facts that)) return false;
+			return Objects.equals(hash, that.hash)
+				   && Objects.equals(version, that.version)
+				   && Objects.equals(themes, that.themes)
+				   && Objects.equals(bots, that.bots);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(hash, version, themes, bots);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Facts [hash=%s, version=%s, themes=%s, bots=%s]", hash, version, themes, bots);
+		}
+	}
+}
@@ -1,12 +1,22 @@
 package org.unrealarchive.indexing;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.unrealarchive.common.YAML;
+import org.unrealarchive.content.ChangeJournal;
 import org.unrealarchive.content.Download;
 import org.unrealarchive.content.addons.Addon;
 import org.unrealarchive.content.addons.SimpleAddonRepository;
@@ -19,21 +29,45 @@ public class ContentManager {
 	private final DataStore contentStore;
 	private final DataStore imageStore;
 
+	private final ChangeJournal journal;
 	private final Set<String> changes;
 
+	private final UploadQueue uploads;
+	private final PendingUploads pending;
+
 	public ContentManager(SimpleAddonRepository repo, DataStore contentStore, DataStore imageStore) {
+		this(repo, contentStore, imageStore, ChangeJournal.NONE);
+	}
+
+	public ContentManager(SimpleAddonRepository repo, DataStore contentStore, DataStore imageStore, ChangeJournal journal) {
+		this(repo, contentStore, imageStore, journal, new UploadQueue(), PendingUploads.NONE);
+	}
+
+	public ContentManager(SimpleAddonRepository repo, DataStore contentStore, DataStore imageStore, ChangeJournal journal,
+						  UploadQueue uploads, PendingUploads pending) {
 		this.repo = repo;
 
 		this.contentStore = contentStore;
 		this.imageStore = imageStore;
 
-		this.changes = new HashSet<>();
+		this.uploads = uploads;
+		this.pending = pending;
+
+		this.journal = journal;
+		this.changes = ConcurrentHashMap.newKeySet();
 	}
 
 	public SimpleAddonRepository repo() {
 		return repo;
 	}
 
+	/**
+	 * @return hashes of all content checked in by this manager
+	 */
+	public Set<String> changes() {
+		return Collections.unmodifiableSet(changes);
+	}
+
 	/*
 	 intent: when some content is going to be worked on, a clone is checked out.
 	 when its checked out, its hash (immutable) is stored in the out collection.
@@ -46,7 +80,7 @@ public class ContentManager {
 		Addon out = repo.forHash(hash);
 		if (out != null) {
 			try {
-				return YAML.fromString(YAML.toString(out), Addon.class);
+				return YAML.copy(out, Addon.class);
 			} catch (IOException e) {
 				throw new IllegalStateException("Cannot clone content " + out);
 			}
@@ -54,69 +88,243 @@ public class ContentManager {
 		return null;
 	}
 
+	/**
+	 * Check in content, uploading any new attachments and the submitted file,
+	 * and writing the content to the repository once all uploads complete.
+	 * <p>
+	 * If any uploads fail, the content is not written, and is instead recorded
+	 * as pending so its uploads may be resumed via {@link #resume()}.
+	 *
+	 * @param indexed    content to check in
+	 * @param submission the submission the content was indexed from, may be null
+	 * @return true if the content had changed, and was written
+	 * @throws IOException failed to upload or write content
+	 */
 	public boolean checkin(IndexResult<? extends Addon> indexed, Submission submission) throws IOException {
+		if (!await(upload(indexed, submission))) return false;
+
+		commit(indexed);
+		return true;
+	}
+
+	/**
+	 * The first half of a check-in, which queues upload of any new attachments
+	 * and the submitted file to remote storage, if the content has changed.
+	 * <p>
+	 * Uploads are performed concurrently via the {@link UploadQueue}. Once they
+	 * have all completed, the content's attachments and downloads are updated,
+	 * and it should subsequently be passed to {@link #commit(IndexResult)}.
+	 *
+	 * @param indexed    content to upload
+	 * @param submission the submission the content was indexed from, may be null
+	 * @return a future which completes with true if the content has changed, and
+	 * should be committed, or completes exceptionally if any uploads failed
+	 * @throws IOException failed to clean up files
+	 */
+	public CompletableFuture<Boolean> upload(IndexResult<? extends Addon> indexed, Submission submission) throws IOException {
+		// skip unchanged content without needing to load and compare the current version
+		if (indexed.files.isEmpty() && repo.unchanged(indexed.content)) return CompletableFuture.completedFuture(false);
+
 		Addon current = repo.forHash(indexed.content.hash);
 
-		if (current == null || (!indexed.content.equals(current) || !indexed.files.isEmpty())) {
-			// lets store the content \o/
-			Path next = indexed.content.contentPath(repo.path());
-
-			for (IndexResult.NewAttachment file : indexed.files) {
-				// use same path structure as per contentPath
-				try {
-					String uploadPath = repo.path().relativize(next.resolve(file.name)).toString();
-					if (file.type == Addon.AttachmentType.IMAGE) {
-						imageStore.store(file.path, uploadPath, (fileUrl, ex) -> {
-							if (ex == null && fileUrl != null) {
-								indexed.content.attachments.add(new Addon.Attachment(file.type, file.name, fileUrl));
-							} else {
-								// FIXME
-								ex.printStackTrace();
-							}
-						});
-					}
-				} finally {
-					// cleanup file once uploaded
-					Files.deleteIfExists(file.path);
-				}
+		if (current != null && indexed.content.equals(current) && indexed.files.isEmpty()) {
+			return CompletableFuture.completedFuture(false);
+		}
+
+		// lets store the content \o/
+		Path next = indexed.content.contentPath(repo.path());
+
+		final Map<IndexResult.NewAttachment, CompletableFuture<String>> images = new LinkedHashMap<>();
+		for (IndexResult.NewAttachment file : indexed.files) {
+			// use same path structure as per contentPath
+			String uploadPath = repo.path().relativize(next.resolve(file.name)).toString();
+			if (file.type == Addon.AttachmentType.IMAGE) {
+				images.put(file, uploads.store(imageStore, file.path, uploadPath));
+			} else {
+				Files.deleteIfExists(file.path);
 			}
+		}
 
-			// TODO KW 20181015 - don't do this - any updates not involving a re-index will wipe attachments out
-			// delete removed attachments from remote
-//			if (current != null) {
-//				for (Content.Attachment had : current.content.attachments) {
-//					if (!indexed.content.attachments.contains(had)) {
-//						switch (had.type) {
-//							case IMAGE:
-//								imageStore.delete(had.url, d -> {
-//								});
-//								break;
-//							default:
-//								attachmentStore.delete(had.url, d -> {
-//								});
-//						}
+		// TODO KW 20181015 - don't do this - any updates not involving a re-index will wipe attachments out
+		// delete removed attachments from remote
+//		if (current != null) {
+//			for (Content.Attachment had : current.content.attachments) {
+//				if (!indexed.content.attachments.contains(had)) {
+//					switch (had.type) {
+//						case IMAGE:
+//							imageStore.delete(had.url, d -> {
+//							});
+//							break;
+//						default:
+//							attachmentStore.delete(had.url, d -> {
+//							});
 //					}
 //				}
 //			}
+//		}
+
+		final CompletableFuture<String> download;
+		if (submission != null && indexed.content.downloads.stream().noneMatch(d -> d.direct)) {
+			String uploadPath = repo.path().relativize(next.resolve(submission.filePath.getFileName())).toString();
+			download = uploads.store(contentStore, submission.filePath, uploadPath);
+		} else {
+			download = CompletableFuture.completedFuture(null);
+		}
+
+		final List<CompletableFuture<String>> all = new ArrayList<>(images.values());
+		all.add(download);
 
-			if (submission != null && indexed.content.downloads.stream().noneMatch(d -> d.direct)) {
-				String uploadPath = repo.path().relativize(next.resolve(submission.filePath.getFileName())).toString();
-				contentStore.store(submission.filePath, uploadPath, (fileUrl, ex) -> {
-					if (ex == null && fileUrl != null) {
-						indexed.content.downloads.add(new Download(fileUrl, true, Download.DownloadState.OK));
-					} else {
-						// FIXME
-						throw new RuntimeException(ex);
+		// results are applied once everything completes, so content is only modified by a single thread
+		return CompletableFuture.allOf(all.toArray(CompletableFuture[]::new)).handle((v, ex) -> {
+			final Set<IndexResult.NewAttachment> failed = new HashSet<>();
+			images.forEach((file, stored) -> {
+				if (stored.isCompletedExceptionally()) {
+					failed.add(file);
+				} else {
+					indexed.content.attachments.add(new Addon.Attachment(file.type, file.name, stored.join()));
+					try {
+						// cleanup file once uploaded
+						Files.deleteIfExists(file.path);
+					} catch (IOException e) {
+						System.err.printf("Failed to delete uploaded file %s: %s%n", file.path, e.getMessage());
 					}
-				});
+				}
+			});
+
+			if (!download.isCompletedExceptionally() && download.join() != null) {
+				indexed.content.downloads.add(new Download(download.join(), true, Download.DownloadState.OK));
+			}
+
+			if (ex == null) return true;
+
+			final IOException failure = new IOException("Failed to upload files for " + indexed.content.originalFilename,
+														ex instanceof CompletionException ? ex.getCause() : ex);
+			try {
+				pending.add(new IndexResult<>(indexed.content, failed), submission, download.isCompletedExceptionally());
+			} catch (IOException e) {
+				failure.addSuppressed(e);
+			}
+			throw new UncheckedIOException(failure);
+		});
+	}
+
+	/**
+	 * Retry uploads for content which previously failed to upload, and check
+	 * it in if they succeed.
+	 *
+	 * @return number of content items checked in
+	 * @throws IOException failed to read pending uploads
+	 */
+	public int resume() throws IOException {
+		int resumed = 0;
+		for (PendingUploads.Pending p : pending.all()) {
+			try {
+				checkin(new IndexResult<>(p.content, new HashSet<>(p.files)), p.submission);
+				pending.remove(p.content.hash);
+				resumed++;
+			} catch (IOException | RuntimeException e) {
+				System.err.printf("Failed to resume uploads for %s: %s%n", p.content.originalFilename, e.getMessage());
 			}
+		}
+		return resumed;
+	}
+
+	/**
+	 * Wait for the result of an upload.
+	 *
+	 * @param upload upload result
+	 * @param <T>    result type
+	 * @return upload result
+	 * @throws IOException the upload failed
+	 */
+	public static <T> T await(CompletableFuture<T> upload) throws IOException {
+		try {
+			return upload.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof UncheckedIOException io) throw io.getCause();
+			if (e.getCause() instanceof IOException io) throw io;
+			throw e;
+		}
+	}
+
+	/**
+	 * The second half of a check-in, which writes uploaded content to the
+	 * repository and records the change.
+	 *
+	 * @param indexed content to commit
+	 * @throws IOException failed to write the content
+	 */
+	public void commit(IndexResult<? extends Addon> indexed) throws IOException {
+		ChangeJournal.Operation operation = operation(indexed.content);
+
+		repo.put(indexed.content);
+
+		record(operation, indexed.content);
+	}
+
+	/**
+	 * Create a batch of content writes, for bulk edits of checked out content
+	 * which do not involve any uploads.
+	 * <p>
+	 * As with {@link #commit(IndexResult)}, content written by the batch is
+	 * recorded in {@link #changes()} and the change journal.
+	 *
+	 * @param sync if true, flush staged content to disk before committing
+	 * @return a new write batch
+	 * @see SimpleAddonRepository#batch(boolean)
+	 */
+	public SimpleAddonRepository.WriteBatch batch(boolean sync) {
+		return new JournalledBatch(repo.batch(sync));
+	}
+
+	private ChangeJournal.Operation operation(Addon content) {
+		if (repo.forHash(content.hash) == null) return ChangeJournal.Operation.ADD;
+		return content.deleted() ? ChangeJournal.Operation.DELETE : ChangeJournal.Operation.UPDATE;
+	}
+
+	private void record(ChangeJournal.Operation operation, Addon content) throws IOException {
+		this.changes.add(content.hash);
+		journal.record(operation, content, content.hash);
+	}
+
+	private class JournalledBatch implements SimpleAddonRepository.WriteBatch {
+
+		private final SimpleAddonRepository.WriteBatch batch;
+		private final Map<String, Staged> staged = new LinkedHashMap<>();
 
-			repo.put(indexed.content);
+		private record Staged(Addon content, ChangeJournal.Operation operation) {}
 
-			this.changes.add(indexed.content.hash);
+		private JournalledBatch(SimpleAddonRepository.WriteBatch batch) {
+			this.batch = batch;
+		}
+
+		@Override
+		public synchronized void put(Addon added) throws IOException {
+			batch.put(added);
+			staged.merge(added.hash, new Staged(added, operation(added)),
+						 (had, next) -> new Staged(added, had.operation == ChangeJournal.Operation.ADD ? had.operation : next.operation));
+		}
+
+		@Override
+		public synchronized int commit() throws IOException {
+			boolean committed = false;
+			try {
+				int count = batch.commit();
+				committed = true;
+				return count;
+			} finally {
+				// if the commit failed part-way, only record the content which was actually written
+				for (Staged s : staged.values()) {
+					if (committed || s.content.equals(repo.forHash(s.content.hash))) record(s.operation, s.content);
+				}
+				staged.clear();
+			}
+		}
 
-			return true;
+		@Override
+		public synchronized void close() throws IOException {
+			staged.clear();
+			batch.close();
 		}
-		return false;
 	}
 }
@@ -0,0 +1,187 @@
+package org.unrealarchive.indexing;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.unrealarchive.common.Util;
+import org.unrealarchive.content.Games;
+import org.unrealarchive.content.addons.Addon;
+
+/**
+ * An in-memory cache of dependency resolution results for package files,
+ * shared by all indexing workers.
+ * <p>
+ * A package's dependencies are resolved against the other packages it is
+ * distributed with, but only those it imports (directly, or via other
+ * imported packages) can affect the result. Results are therefore keyed by
+ * the game, the package's own name and hash, and the names and hashes of
+ * only those companion packages, so an identical package is resolved once
+ * regardless of what else it is distributed alongside.
+ * <p>
+ * The names of the packages each package imports are also retained by
+ * hash, so finding a package's companions does not require it to be parsed
+ * again.
+ */
+public class DependencyCache {
+
+	public static final int DEFAULT_SIZE = 10_000;
+
+	/**
+	 * A cache which retains nothing.
+	 */
+	public static final DependencyCache NONE = new DependencyCache(0);
+
+	private final int maxSize;
+	private final Map<String, List<Addon.Dependency>> entries;
+	private final Map<String, Set<String>> imports;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	public DependencyCache(int maxSize) {
+		this.maxSize = maxSize;
+		this.entries = lru(maxSize);
+		this.imports = lru(maxSize);
+	}
+
+	private static <V> Map<String, V> lru(int maxSize) {
+		return new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Find the packages distributed alongside a package which may affect the
+	 * resolution of its dependencies; those it imports, and those imported by
+	 * them in turn.
+	 *
+	 * @param file     package to find companions of
+	 * @param packages all packages distributed together
+	 * @param imports  names of the packages a package imports
+	 * @return companion packages, not including the package itself
+	 */
+	public static Set<Incoming.IncomingFile> companions(Incoming.IncomingFile file, Collection<Incoming.IncomingFile> packages,
+														Function<Incoming.IncomingFile, Set<String>> imports) {
+		final Map<String, Set<Incoming.IncomingFile>> byName = new HashMap<>();
+		for (Incoming.IncomingFile f : packages) {
+			byName.computeIfAbsent(Util.plainName(f.fileName()).toLowerCase(), k -> new HashSet<>()).add(f);
+		}
+
+		final Set<Incoming.IncomingFile> found = new HashSet<>();
+		final Deque<Incoming.IncomingFile> next = new ArrayDeque<>(List.of(file));
+		while (!next.isEmpty()) {
+			for (String name : imports.apply(next.pop())) {
+				for (Incoming.IncomingFile f : byName.getOrDefault(name.toLowerCase(), Set.of())) {
+					if (!f.equals(file) && found.add(f)) next.push(f);
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Generate a cache key for a package.
+	 *
+	 * @param game       game dependencies are resolved for
+	 * @param file       package to resolve dependencies of
+	 * @param companions packages which may affect resolution, from
+	 *                   {@link #companions(Incoming.IncomingFile, Collection, Function)}
+	 * @return cache key
+	 */
+	public static String key(Games game, Incoming.IncomingFile file, Collection<Incoming.IncomingFile> companions) {
+		try {
+			final MessageDigest md = MessageDigest.getInstance("SHA-1");
+			companions.stream()
+					  .map(f -> f.fileName().toLowerCase() + "\t" + f.hash() + "\n")
+					  .sorted()
+					  .forEach(s -> md.update(s.getBytes(StandardCharsets.UTF_8)));
+			return String.join("\t", game.name(), Util.plainName(file.fileName()), file.hash(), HexFormat.of().formatHex(md.digest()));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Get the names of the packages a package imports, reading them if they
+	 * are not already known for a package with the same hash.
+	 *
+	 * @param file package to get imports of
+	 * @param read reads the names of the packages imported by a package
+	 * @return names of imported packages
+	 */
+	public Set<String> imports(Incoming.IncomingFile file, Function<Incoming.IncomingFile, Set<String>> read) {
+		final String hash = file.hash();
+		synchronized (imports) {
+			final Set<String> known = imports.get(hash);
+			if (known != null) return known;
+		}
+
+		final Set<String> result = Set.copyOf(read.apply(file));
+		if (maxSize > 0) {
+			synchronized (imports) {
+				imports.put(hash, result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param key cache key
+	 * @return dependencies previously resolved for the key, or null if not known
+	 */
+	public List<Addon.Dependency> get(String key) {
+		final List<Addon.Dependency> result;
+		synchronized (entries) {
+			result = entries.get(key);
+		}
+		if (result == null) misses.incrementAndGet();
+		else hits.incrementAndGet();
+		return result;
+	}
+
+	/**
+	 * @param key          cache key
+	 * @param dependencies resolved dependencies
+	 */
+	public void put(String key, List<Addon.Dependency> dependencies) {
+		if (maxSize <= 0) return;
+		synchronized (entries) {
+			entries.put(key, List.copyOf(dependencies));
+		}
+	}
+
+	/**
+	 * @return number of lookups which found a previously resolved result
+	 */
+	public long hits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return number of lookups which required dependencies to be resolved
+	 */
+	public long misses() {
+		return misses.get();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("DependencyCache [maxSize=%s, hits=%s, misses=%s]", maxSize, hits, misses);
+	}
+}
@@ -17,7 +17,6 @@ import javax.imageio.ImageIO;
 
 import net.shrimpworks.unreal.packages.IntFile;
 import net.shrimpworks.unreal.packages.Package;
-import net.shrimpworks.unreal.packages.PackageReader;
 import net.shrimpworks.unreal.packages.entities.ExportedObject;
 import net.shrimpworks.unreal.packages.entities.objects.Object;
 import net.shrimpworks.unreal.packages.entities.properties.Property;
@@ -26,6 +25,7 @@ import net.shrimpworks.unreal.packages.entities.properties.StringProperty;
 import org.unrealarchive.common.Platform;
 import org.unrealarchive.common.Util;
 import org.unrealarchive.common.YAML;
+import org.unrealarchive.content.ChangeJournal;
 import org.unrealarchive.content.Download;
 import org.unrealarchive.content.FileType;
 import org.unrealarchive.content.Games;
@@ -46,10 +46,24 @@ public class GameTypeManager {
 	private final DataStore contentStore;
 	private final DataStore imageStore;
 
+	private final ChangeJournal journal;
+	private final IndexContext context;
+
 	public GameTypeManager(GameTypeRepository repo, DataStore contentStore, DataStore imageStore) {
+		this(repo, contentStore, imageStore, ChangeJournal.NONE);
+	}
+
+	public GameTypeManager(GameTypeRepository repo, DataStore contentStore, DataStore imageStore, ChangeJournal journal) {
+		this(repo, contentStore, imageStore, journal, IndexContext.DEFAULT);
+	}
+
+	public GameTypeManager(GameTypeRepository repo, DataStore contentStore, DataStore imageStore, ChangeJournal journal,
+						   IndexContext context) {
 		this.repo = repo;
 		this.contentStore = contentStore;
 		this.imageStore = imageStore;
+		this.journal = journal;
+		this.context = context;
 	}
 
 	public GameTypeRepository repo() {
@@ -58,7 +72,7 @@ public class GameTypeManager {
 
 	public GameType checkout(GameType gameType) {
 		try {
-			GameType clone = YAML.fromString(YAML.toString(gameType), GameType.class);
+			GameType clone = YAML.copy(gameType, GameType.class);
 			clone.variation = gameType.isVariation();
 			return clone;
 		} catch (IOException e) {
@@ -68,7 +82,9 @@ public class GameTypeManager {
 
 	public void checkin(GameType gameType) {
 		try {
+			final boolean added = repo.findGametype(Games.byName(gameType.game), gameType.name) == null;
 			repo.put(gameType);
+			record(gameType, added);
 		} catch (IOException e) {
 			throw new IllegalStateException("Cannot store GameType " + gameType.name());
 		}
@@ -77,6 +93,7 @@ public class GameTypeManager {
 	public void addRelease(Games game, String gameType, String releaseName, Path localFile, Map<String, String> params,
 						   BiConsumer<GameType, GameType.Release> complete)
 		throws IOException {
+		final boolean added = repo.findGametype(game, gameType) == null;
 		GameType gt = Optional.ofNullable(repo.findGametype(game, gameType))
 							  .or(() -> {
 								  repo.create(game, gameType, (created) -> {
@@ -112,10 +129,18 @@ public class GameTypeManager {
 		rel.files.add(file);
 
 		repo.put(gt);
+		record(gt, added);
 
 		complete.accept(gt, rel);
 	}
 
+	private void record(GameType gameType, boolean added) throws IOException {
+		journal.record(added
+						   ? ChangeJournal.Operation.ADD
+						   : gameType.deleted() ? ChangeJournal.Operation.DELETE : ChangeJournal.Operation.UPDATE,
+					   gameType, gameType.contentPath(Paths.get("")).toString());
+	}
+
 	public void sync() {
 		syncReleases();
 	}
@@ -160,7 +185,7 @@ public class GameTypeManager {
 
 		// populate files and dependencies
 		if (!r.synced) {
-			try (Incoming incoming = new Incoming(new Submission(localFile))) {
+			try (Incoming incoming = new Incoming(new Submission(localFile), IndexLog.NOP, context, null)) {
 				System.out.println(" - get file details for " + localFile.getFileName());
 
 				// reuse Incoming implementation, capable of unpacking various files and formats
@@ -169,7 +194,9 @@ public class GameTypeManager {
 				// gather files
 				r.otherFiles = 0;
 				r.files.clear();
-				for (Incoming.IncomingFile i : incoming.files(FileType.ALL)) {
+				Set<Incoming.IncomingFile> files = incoming.files(FileType.ALL);
+				incoming.prefetch(files.stream().filter(f -> FileType.important(f.file)).toList());
+				for (Incoming.IncomingFile i : files) {
 					if (!FileType.important(i.file)) {
 						r.otherFiles++;
 						continue;
@@ -209,7 +236,7 @@ public class GameTypeManager {
 				// other file stats
 				if (!releaseFile.synced) {
 					releaseFile.fileSize = Files.size(localFile);
-					releaseFile.hash = Util.hash(localFile);
+					releaseFile.hash = Util.hash(localFile, context.hashes);
 					releaseFile.originalFilename = Util.fileName(localFile);
 					releaseFile.synced = true;
 				}
@@ -234,7 +261,7 @@ public class GameTypeManager {
 			}
 		}
 
-		try (Incoming incoming = new Incoming(new Submission(f[0]))) {
+		try (Incoming incoming = new Incoming(new Submission(f[0]), IndexLog.NOP, context, null)) {
 			// reuse Incoming implementation, capable of unpacking various files and formats
 			incoming.prepare();
 
@@ -388,7 +415,7 @@ public class GameTypeManager {
 
 		// FIXME use map indexer
 		return mapFiles.stream()
-					   .map(mf -> new FileAndPackage(mf, new Package(new PackageReader(mf.asChannel()))))
+					   .map(mf -> new FileAndPackage(mf, mf.asPackage()))
 					   .map(fp -> {
 						   final String mapName = Util.plainName(fp.f.file);
 						   String title = "";
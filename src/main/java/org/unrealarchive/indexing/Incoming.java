@@ -7,23 +7,34 @@ import java.nio.channels.SeekableByteChannel;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
+import net.shrimpworks.unreal.packages.Package;
+import net.shrimpworks.unreal.packages.PackageReader;
 import net.shrimpworks.unreal.packages.Umod;
 
 import org.unrealarchive.common.ArchiveUtil;
+import org.unrealarchive.common.MemoryFile;
 import org.unrealarchive.common.Util;
 import org.unrealarchive.content.FileType;
 
@@ -31,16 +42,34 @@ public class Incoming implements Closeable {
 
 	private static final Duration EXTRACT_TIMEOUT = Duration.ofMinutes(2);
 
+	// umod files must be on disk to be read, so archives containing them are always extracted
+	private static final Set<String> UMOD_TYPES = Set.copyOf(FileType.UMOD.ext);
+
+	public static final long DEFAULT_MEMORY_LIMIT = 16 * 1024 * 1024;
+
+	/**
+	 * Maximum number of parsed packages retained for reuse. The least recently
+	 * used package is closed once this many are held.
+	 */
+	public static final int MAX_PACKAGES = 32;
+
 	public final Submission submission;
 	public final String hash;
 	public final int fileSize;
 	public final IndexLog log;
+	public final IndexContext context;
 
 	private final Set<Umod> umods;
+	private final Map<String, Package> packages;
+	private final Executor prefetcher;
+
+	private int packagesReused;
 
 	public Path contentRoot;
 	public Map<String, Object> files;
 
+	private Map<FileType, Set<IncomingFile>> index = Collections.emptyMap();
+
 	private Path repackPath;
 
 	public Incoming(Submission submission) throws IOException, UnsupportedOperationException {
@@ -48,22 +77,114 @@ public class Incoming implements Closeable {
 	}
 
 	public Incoming(Submission submission, IndexLog log) throws IOException, UnsupportedOperationException {
+		this(submission, log, IndexContext.DEFAULT, null);
+	}
+
+	/**
+	 * @param submission content to be indexed
+	 * @param log        log to record issues to
+	 * @param context    caches and options of the command indexing the content
+	 * @param prefetcher executor used to read file details by {@link #prefetch(Collection)};
+	 *                   if null, details are read by the calling thread
+	 * @throws IOException failed to read the submission
+	 */
+	public Incoming(Submission submission, IndexLog log, IndexContext context, Executor prefetcher)
+		throws IOException, UnsupportedOperationException {
 		this.submission = submission;
-		this.hash = Util.hash(submission.filePath);
+		this.hash = Util.hash(submission.filePath, context.hashes);
 		this.fileSize = (int)Files.size(submission.filePath);
 		this.umods = new HashSet<>();
+		this.packages = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Package> eldest) {
+				if (size() <= MAX_PACKAGES) return false;
+				closePackage(eldest.getValue());
+				return true;
+			}
+		};
 		this.log = log;
+		this.context = context;
+		this.prefetcher = prefetcher;
 	}
 
 	public Incoming prepare() throws IOException {
 		this.contentRoot = Files.createTempDirectory("archive-incoming-");
-		unpackFiles(submission.filePath, this.contentRoot);
-		this.files = listFiles(this.contentRoot);
+
+		// small archives are held in memory, and only written to disk if needed
+		final long memoryLimit = context.memoryLimit;
+		List<MemoryFile> inMemory = memoryLimit > 0 ? ArchiveUtil.readInMemory(submission.filePath, memoryLimit, UMOD_TYPES) : null;
+		if (inMemory != null) {
+			this.files = new HashMap<>();
+			for (MemoryFile f : inMemory) files.put(contentRoot.resolve(f.name).toString(), f);
+		} else {
+			unpackFiles(submission.filePath, this.contentRoot);
+			this.files = listFiles(this.contentRoot);
+		}
+		this.index = indexFiles(files);
 		return this;
 	}
 
+	/**
+	 * Write any files held in memory to disk, within {@link #contentRoot}, for
+	 * consumers which can only read files from disk.
+	 *
+	 * @param types types of files to write; if none are specified, all files
+	 *              are written
+	 * @return the content root path
+	 * @throws IOException failed to write files
+	 */
+	public synchronized Path materialise(FileType... types) throws IOException {
+		for (Map.Entry<String, Object> e : files.entrySet()) {
+			if (!(e.getValue() instanceof MemoryFile)) continue;
+			if (types.length > 0 && Arrays.stream(types).noneMatch(t -> t.matches(e.getKey()))) continue;
+
+			Path path = Paths.get(e.getKey());
+			Files.createDirectories(path.getParent());
+			((MemoryFile)e.getValue()).write(path);
+			e.setValue(path);
+		}
+		return contentRoot;
+	}
+
+	/**
+	 * @return number of package parses avoided by reusing packages already
+	 * parsed via {@link IncomingFile#asPackage()}
+	 */
+	public synchronized int packagesReused() {
+		return packagesReused;
+	}
+
+	private synchronized Package pkg(IncomingFile file) {
+		Package pkg = packages.get(file.file);
+		if (pkg != null) {
+			packagesReused++;
+			return pkg;
+		}
+
+		// maps have always been read by the map indexer with this reader configuration, so keep
+		// doing so regardless of which consumer happens to parse the map first
+		pkg = FileType.MAP.matches(file.file)
+			? new Package(new PackageReader(file.asChannel(), false))
+			: new Package(new PackageReader(file.asChannel()));
+		packages.put(file.file, pkg);
+		return pkg;
+	}
+
+	private void closePackage(Package pkg) {
+		try {
+			pkg.close();
+		} catch (Exception e) {
+			log.log(IndexLog.EntryType.INFO, "Failed closing package " + pkg, e);
+		}
+	}
+
 	@Override
 	public void close() {
+		synchronized (this) {
+			for (Package p : packages.values()) closePackage(p);
+			packages.clear();
+		}
+
 		for (Umod v : umods) {
 			try {
 				v.close();
@@ -75,6 +196,7 @@ public class Incoming implements Closeable {
 		umods.clear();
 
 		if (files != null) files.clear();
+		index = Collections.emptyMap();
 
 		// clean up contentRoot
 		if (contentRoot != null) {
@@ -109,16 +231,58 @@ public class Incoming implements Closeable {
 	}
 
 	public Set<IncomingFile> files(FileType... type) {
+		if (type.length == 1) return index.getOrDefault(type[0], Collections.emptySet());
+
 		Set<IncomingFile> res = new HashSet<>();
 		for (FileType t : type) {
-			res.addAll(files.keySet().stream()
-							.filter(t::matches)
-							.map(IncomingFile::new)
-							.collect(Collectors.toSet()));
+			res.addAll(index.getOrDefault(t, Collections.emptySet()));
 		}
 		return Collections.unmodifiableSet(res);
 	}
 
+	/**
+	 * Read and cache the size, date and hash of the provided files, reading
+	 * several files at a time via the prefetch executor, if one was provided.
+	 * <p>
+	 * Files within umod archives are all read via the umod's single channel,
+	 * so they are left to be read on demand.
+	 *
+	 * @param files files to read details of
+	 */
+	public void prefetch(Collection<IncomingFile> files) {
+		final List<IncomingFile> fetch = files.stream()
+											  .filter(f -> !(this.files.get(f.file) instanceof Umod.UmodFile))
+											  .toList();
+
+		if (prefetcher == null) {
+			fetch.forEach(IncomingFile::prefetch);
+			return;
+		}
+
+		try {
+			CompletableFuture.allOf(fetch.stream()
+										 .map(f -> CompletableFuture.runAsync(f::prefetch, prefetcher))
+										 .toArray(CompletableFuture[]::new))
+							 .join();
+		} catch (RejectedExecutionException e) {
+			// details will be read on demand instead
+		}
+	}
+
+	/**
+	 * Group files by type once, so repeated lookups by type do not need to
+	 * re-examine every file.
+	 */
+	private Map<FileType, Set<IncomingFile>> indexFiles(Map<String, Object> files) {
+		Map<FileType, Set<IncomingFile>> index = new EnumMap<>(FileType.class);
+		for (String f : files.keySet()) {
+			FileType type = FileType.forFile(f);
+			if (type != null) index.computeIfAbsent(type, t -> new HashSet<>()).add(new IncomingFile(f));
+		}
+		index.replaceAll((t, s) -> Collections.unmodifiableSet(s));
+		return Collections.unmodifiableMap(index);
+	}
+
 	private Map<String, Object> listFiles(Path contentRoot) throws IOException {
 		Map<String, Object> files = new HashMap<>();
 		if (contentRoot != null && Files.exists(contentRoot)) {
@@ -182,6 +346,11 @@ public class Incoming implements Closeable {
 
 		public final String file;
 
+		// file attributes are cached on first use, since this file may be shared by many consumers
+		private Integer size;
+		private LocalDateTime date;
+		private String hash;
+
 		private IncomingFile(String file) {
 			this.file = file;
 		}
@@ -192,6 +361,8 @@ public class Incoming implements Closeable {
 					return FileChannel.open((Path)files.get(file));
 				} else if (files.get(file) instanceof Umod.UmodFile) {
 					return ((Umod.UmodFile)files.get(file)).read();
+				} else if (files.get(file) instanceof MemoryFile) {
+					return ((MemoryFile)files.get(file)).read();
 				}
 			} catch (IOException e) {
 				throw new IllegalStateException("Failed to open file for reading " + file, e);
@@ -200,16 +371,49 @@ public class Incoming implements Closeable {
 			return null;
 		}
 
+		/**
+		 * Read this file as an Unreal package.
+		 * <p>
+		 * Packages are parsed once, and the same instance is returned to all
+		 * callers until the {@link Incoming} is closed, which also closes the
+		 * package. Callers should therefore not close the package themselves.
+		 * <p>
+		 * At most {@link Incoming#MAX_PACKAGES} packages are retained, so callers should
+		 * not hold on to a package while reading many others.
+		 *
+		 * @return the parsed package
+		 */
+		public Package asPackage() {
+			return pkg(this);
+		}
+
 		public String fileName() {
 			return Util.fileName(file);
 		}
 
+		private void prefetch() {
+			try {
+				fileSize();
+				fileDate();
+				hash();
+			} catch (Exception e) {
+				// failures will be encountered and reported by callers when requesting details
+			}
+		}
+
 		public int fileSize() {
+			if (size == null) size = readFileSize();
+			return size;
+		}
+
+		private int readFileSize() {
 			try {
 				if (files.get(file) instanceof Path) {
 					return (int)Files.size((Path)files.get(file));
 				} else if (files.get(file) instanceof Umod.UmodFile) {
 					return ((Umod.UmodFile)files.get(file)).size;
+				} else if (files.get(file) instanceof MemoryFile) {
+					return ((MemoryFile)files.get(file)).size;
 				}
 			} catch (IOException e) {
 				throw new IllegalStateException("Failed to get file size for " + file, e);
@@ -218,12 +422,19 @@ public class Incoming implements Closeable {
 		}
 
 		public LocalDateTime fileDate() {
+			if (date == null) date = readFileDate();
+			return date;
+		}
+
+		private LocalDateTime readFileDate() {
 			try {
 				if (files.get(file) instanceof Path) {
 					return Files.getLastModifiedTime((Path)files.get(file)).toInstant().atOffset(ZoneOffset.UTC).toLocalDateTime(); // hmm?
 				} else if (files.get(file) instanceof Umod.UmodFile) {
 					Set<IncomingFile> umodMaybe = files(FileType.UMOD);
 					if (!umodMaybe.isEmpty()) return umodMaybe.iterator().next().fileDate();
+				} else if (files.get(file) instanceof MemoryFile && ((MemoryFile)files.get(file)).modified != null) {
+					return ((MemoryFile)files.get(file)).modified.toInstant().atOffset(ZoneOffset.UTC).toLocalDateTime();
 				}
 			} catch (IOException e) {
 				throw new IllegalStateException("Failed to get file date for " + file, e);
@@ -236,11 +447,19 @@ public class Incoming implements Closeable {
 		}
 
 		public String hash() {
+			if (hash == null) hash = readHash();
+			return hash;
+		}
+
+		private String readHash() {
 			try {
 				if (files.get(file) instanceof Path) {
-					return Util.hash((Path)files.get(file));
+					// extracted files are short-lived, so are not worth caching hashes for
+					return Util.sha1((Path)files.get(file));
 				} else if (files.get(file) instanceof Umod.UmodFile) {
 					return ((Umod.UmodFile)files.get(file)).sha1();
+				} else if (files.get(file) instanceof MemoryFile) {
+					return ((MemoryFile)files.get(file)).sha1();
 				}
 			} catch (IOException e) {
 				throw new IllegalStateException("Failed to get hash for " + file, e);
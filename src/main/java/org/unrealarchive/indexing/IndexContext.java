@@ -0,0 +1,68 @@
+package org.unrealarchive.indexing;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.unrealarchive.common.HashCache;
+
+/**
+ * Caches and options shared by everything processing content during a single
+ * command, such as the {@link Indexer} or {@link Scanner}, and each
+ * {@link Incoming} they create.
+ * <p>
+ * A context is created when a command starts, and closed when it ends, which
+ * closes any file-backed caches it holds.
+ */
+public class IndexContext implements Closeable {
+
+	/**
+	 * A context with no caches, used when content is processed outside of a
+	 * command which provides its own context.
+	 */
+	public static final IndexContext DEFAULT = new IndexContext(HashCache.NONE, AnalysisCache.NONE, DependencyCache.NONE,
+																Incoming.DEFAULT_MEMORY_LIMIT);
+
+	/**
+	 * Hashes of submitted files.
+	 */
+	public final HashCache hashes;
+
+	/**
+	 * Facts derived from analysing files within content.
+	 */
+	public final AnalysisCache analysis;
+
+	/**
+	 * Dependencies resolved for packages within content.
+	 */
+	public final DependencyCache dependencies;
+
+	/**
+	 * Archives with a total uncompressed size up to this many bytes are read
+	 * into memory rather than extracted to disk. Zero disables reading into
+	 * memory.
+	 */
+	public final long memoryLimit;
+
+	public IndexContext(HashCache hashes, AnalysisCache analysis, DependencyCache dependencies, long memoryLimit) {
+		this.hashes = hashes;
+		this.analysis = analysis;
+		this.dependencies = dependencies;
+		this.memoryLimit = memoryLimit;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			hashes.close();
+		} finally {
+			analysis.close();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("IndexContext [hashes=%s, analysis=%s, dependencies=%s, memoryLimit=%s]",
+							 hashes.size(), analysis, dependencies, memoryLimit);
+	}
+}
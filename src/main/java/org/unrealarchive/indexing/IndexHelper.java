@@ -58,40 +58,43 @@ import static org.unrealarchive.content.addons.Addon.UNKNOWN;
 public class IndexHelper {
 
 	public static void main(String[] args) throws IOException {
-//		fixCDOMMaps();
-//		reindexMapsWithThemes(args[0], args[1], args[2]);
-//		removeGamefrontOnlineLinks();
-//		removeDeadLinks();
-//		attachmentMove();
-//		attachmentGametypeMove();
-//		removeB2Attachments();
-//		removeB2Links();
-//		fixDirectDownloads();
-//		findUnrealPlayground();
-//		moveAll();
-//		removeWasabiLinks();
-//		findPopularTextures("Unreal Tournament 2004", "MAP", "/home/shrimp/tmp/files/UnrealTournament2004/Maps");
-//		findGametypes(args[0]);
-//		checkPathing(args[0], args[1]);
-//		contentDependencies(args[0], args[1], args[2]);
-//		fixUnknownAuthors(args[0], args[1], args[2]);
-//		umodDependencies(args[0]);
-//		fixMissingModels(args[0]);
-//		fixModelNames(args[0]);
-//		dedupeModelsSkinsNames(args[0]);
-//		fixDuplicateMapPics(args[0], args[1]);
-//		fixMapGametypes(args[0]);
-//		fixMissingMapPics(args[0]);
-//		fixMonterHuntSnipersParadise();
-//		fixGreedMaps();
-//		setMapPackGametypes();
-//		findAutoIndexLinks(args[0], args[1], Integer.parseInt(args[2]));
-//		findDupeFiles();
-//		dedupeExtraFiles();
-//		fixDoubleSlashLinks();
-//		relinkMedor();
-
-		gc();
+		// caches, such as file hashes, as configured for the indexer
+		try (IndexContext context = Main.indexContext(CLI.parse(args))) {
+//			fixCDOMMaps();
+//			reindexMapsWithThemes(context, args[0], args[1], args[2]);
+//			removeGamefrontOnlineLinks();
+//			removeDeadLinks();
+//			attachmentMove();
+//			attachmentGametypeMove();
+//			removeB2Attachments();
+//			removeB2Links();
+//			fixDirectDownloads();
+//			findUnrealPlayground();
+//			moveAll();
+//			removeWasabiLinks();
+//			findPopularTextures(context, "Unreal Tournament 2004", "MAP", "/home/shrimp/tmp/files/UnrealTournament2004/Maps");
+//			findGametypes(args[0]);
+//			checkPathing(context, args[0], args[1]);
+//			contentDependencies(context, args[0], args[1], args[2]);
+//			fixUnknownAuthors(context, args[0], args[1], args[2]);
+//			umodDependencies(args[0]);
+//			fixMissingModels(args[0]);
+//			fixModelNames(args[0]);
+//			dedupeModelsSkinsNames(args[0]);
+//			fixDuplicateMapPics(args[0], args[1]);
+//			fixMapGametypes(args[0]);
+//			fixMissingMapPics(args[0]);
+//			fixMonterHuntSnipersParadise();
+//			fixGreedMaps();
+//			setMapPackGametypes();
+//			findAutoIndexLinks(args[0], args[1], Integer.parseInt(args[2]));
+//			findDupeFiles();
+//			dedupeExtraFiles();
+//			fixDoubleSlashLinks();
+//			relinkMedor();
+
+			gc();
+		}
 	}
 
 	private static void gc() throws IOException {
@@ -384,21 +387,25 @@ public class IndexHelper {
 
 		final Pattern file = Pattern.compile(".*file=(.*)");
 
-		for (Addon c : search) {
-			Addon co = cm.checkout(c.hash);
-			boolean changed = false;
-			for (Download dl : co.downloads) {
-				if (dl.url.contains("http://medor.no-ip.org/")) {
-					Matcher m = file.matcher(dl.url);
-					if (m.find()) {
-						dl.url = "http://medor.no-ip.org/index.php?dir=&search_mode=f&search=" + m.group(1);
-//						System.out.println(dl.url);
-						changed = true;
+		try (SimpleAddonRepository.WriteBatch batch = cm.batch(true)) {
+			for (Addon c : search) {
+				Addon co = cm.checkout(c.hash);
+				boolean changed = false;
+				for (Download dl : co.downloads) {
+					if (dl.url.contains("http://medor.no-ip.org/")) {
+						Matcher m = file.matcher(dl.url);
+						if (m.find()) {
+							dl.url = "http://medor.no-ip.org/index.php?dir=&search_mode=f&search=" + m.group(1);
+//							System.out.println(dl.url);
+							changed = true;
+						}
 					}
 				}
+
+				if (changed) batch.put(co);
 			}
 
-			maybeCheckin(cm, co, changed);
+			System.out.printf("Stored changes for %d items%n", batch.commit());
 		}
 
 	}
@@ -406,19 +413,23 @@ public class IndexHelper {
 	public static void fixDoubleSlashLinks() throws IOException {
 		ContentManager cm = manager();
 		Collection<Addon> search = cm.repo().all();
-		for (Addon c : search) {
-			Addon co = cm.checkout(c.hash);
-			boolean changed = false;
-			for (Download dl : co.downloads) {
+		try (SimpleAddonRepository.WriteBatch batch = cm.batch(true)) {
+			for (Addon c : search) {
+				Addon co = cm.checkout(c.hash);
+				boolean changed = false;
+				for (Download dl : co.downloads) {
 
-				if (dl.url.matches(".*[A-Za-z]//.*")) {
-					dl.url = dl.url.replaceAll("([A-Za-z])//", "$1/");
-					System.out.println(dl.url);
-					changed = true;
+					if (dl.url.matches(".*[A-Za-z]//.*")) {
+						dl.url = dl.url.replaceAll("([A-Za-z])//", "$1/");
+						System.out.println(dl.url);
+						changed = true;
+					}
 				}
+
+				if (changed) batch.put(co);
 			}
 
-			maybeCheckin(cm, co, changed);
+			System.out.printf("Stored changes for %d items%n", batch.commit());
 		}
 
 	}
@@ -598,7 +609,7 @@ public class IndexHelper {
 		}
 	}
 
-	private static void fixUnknownAuthors(String game, String type, String localFiles) throws IOException {
+	private static void fixUnknownAuthors(IndexContext context, String game, String type, String localFiles) throws IOException {
 		final Path root = Paths.get(localFiles);
 
 		ContentManager cm = manager();
@@ -608,7 +619,7 @@ public class IndexHelper {
 			@Override
 			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
 				if (ArchiveUtil.isArchive(file)) {
-					fileHashes.put(Util.hash(file), file);
+					fileHashes.put(Util.hash(file, context.hashes), file);
 				}
 				return super.visitFile(file, attrs);
 			}
@@ -649,7 +660,7 @@ public class IndexHelper {
 				Submission sub = new Submission(file);
 				IndexLog log = new IndexLog();
 
-				try (Incoming incoming = new Incoming(sub, log).prepare()) {
+				try (Incoming incoming = new Incoming(sub, log, context, null).prepare()) {
 					co.author = IndexUtils.findAuthor(incoming);
 				} catch (Exception e) {
 					e.printStackTrace();
@@ -668,7 +679,7 @@ public class IndexHelper {
 		}
 	}
 
-	private static void contentDependencies(String game, String type, String localFiles) throws IOException {
+	private static void contentDependencies(IndexContext context, String game, String type, String localFiles) throws IOException {
 		final Path root = Paths.get(localFiles);
 
 		ContentManager cm = manager();
@@ -678,7 +689,7 @@ public class IndexHelper {
 			@Override
 			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
 				if (ArchiveUtil.isArchive(file)) {
-					fileHashes.put(Util.hash(file), file);
+					fileHashes.put(Util.hash(file, context.hashes), file);
 				}
 				return super.visitFile(file, attrs);
 			}
@@ -724,7 +735,7 @@ public class IndexHelper {
 
 				Submission sub = new Submission(file);
 				IndexLog log = new IndexLog();
-				try (Incoming incoming = new Incoming(sub, log).prepare()) {
+				try (Incoming incoming = new Incoming(sub, log, context, null).prepare()) {
 					co.dependencies = IndexUtils.dependencies(Games.byName(co.game), incoming);
 				} catch (Exception e) {
 					e.printStackTrace();
@@ -1026,7 +1037,7 @@ public class IndexHelper {
 		}
 	}
 
-	private static void checkPathing(String game, String localFiles) throws IOException {
+	private static void checkPathing(IndexContext context, String game, String localFiles) throws IOException {
 		final Path root = Paths.get(localFiles);
 
 		ContentManager cm = manager();
@@ -1036,7 +1047,7 @@ public class IndexHelper {
 			@Override
 			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
 				if (ArchiveUtil.isArchive(file)) {
-					fileHashes.put(Util.hash(file), file);
+					fileHashes.put(Util.hash(file, context.hashes), file);
 				}
 				return super.visitFile(file, attrs);
 			}
@@ -1078,7 +1089,7 @@ public class IndexHelper {
 
 				Submission sub = new Submission(file);
 				IndexLog log = new IndexLog();
-				try (Incoming incoming = new Incoming(sub, log).prepare()) {
+				try (Incoming incoming = new Incoming(sub, log, context, null).prepare()) {
 					if (!incoming.files(FileType.MAP).isEmpty()) {
 						try (Package pkg = new Package(
 							new PackageReader(incoming.files(FileType.MAP).stream().findFirst().get().asChannel()))) {
@@ -1258,7 +1269,7 @@ public class IndexHelper {
 		}
 	}
 
-	public static void reindexMapsWithThemes(String game, String type, String localFiles) throws IOException {
+	public static void reindexMapsWithThemes(IndexContext context, String game, String type, String localFiles) throws IOException {
 		ContentManager cm = manager();
 
 		final Path root = Paths.get(localFiles);
@@ -1266,7 +1277,7 @@ public class IndexHelper {
 		Files.walkFileTree(root, new SimpleFileVisitor<>() {
 			@Override
 			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-				fileHashes.put(Util.hash(file), file);
+				fileHashes.put(Util.hash(file, context.hashes), file);
 				return super.visitFile(file, attrs);
 			}
 		});
@@ -1314,7 +1325,7 @@ public class IndexHelper {
 					((MapPack)result.content).gametype = ((MapPack)before).gametype;
 				}
 			}
-		});
+		}, context);
 
 		Collection<Addon> search = cm.repo().search(game, type, null, null);
 		final Path tmpDir = Files.createTempDirectory("ua-themes");
@@ -1354,7 +1365,7 @@ public class IndexHelper {
 		}
 	}
 
-	public static void findPopularTextures(String game, String type, String localFiles) throws IOException {
+	public static void findPopularTextures(IndexContext context, String game, String type, String localFiles) throws IOException {
 		ContentManager cm = manager();
 
 		final Path root = Paths.get(localFiles);
@@ -1364,7 +1375,7 @@ public class IndexHelper {
 		Files.walkFileTree(root, new SimpleFileVisitor<>() {
 			@Override
 			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-				fileHashes.put(Util.hash(file), file);
+				fileHashes.put(Util.hash(file, context.hashes), file);
 				return super.visitFile(file, attrs);
 			}
 		});
@@ -1382,7 +1393,7 @@ public class IndexHelper {
 					System.out.print(".");
 					Submission sub = new Submission(existing);
 					IndexLog log = new IndexLog();
-					try (Incoming incoming = new Incoming(sub, log).prepare()) {
+					try (Incoming incoming = new Incoming(sub, log, context, null).prepare()) {
 						try (Package pkg = new Package(new PackageReader(
 							incoming.files(FileType.MAP).stream().findFirst().get().asChannel()
 						))) {
@@ -1,5 +1,6 @@
 package org.unrealarchive.indexing;
 
+import java.beans.ConstructorProperties;
 import java.nio.file.Path;
 import java.util.Set;
 
@@ -21,6 +22,7 @@ public class IndexResult<T extends Addon> {
 		public final String name;
 		public final Path path;
 
+		@ConstructorProperties({ "type", "name", "path" })
 		public NewAttachment(Addon.AttachmentType type, String name, Path path) {
 			this.type = type;
 			this.name = name;
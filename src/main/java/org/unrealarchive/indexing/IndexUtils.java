@@ -13,6 +13,7 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -28,7 +29,6 @@ import net.shrimpworks.unreal.dependencies.Resolved;
 import net.shrimpworks.unreal.dependencies.ShippedPackages;
 import net.shrimpworks.unreal.packages.IntFile;
 import net.shrimpworks.unreal.packages.Package;
-import net.shrimpworks.unreal.packages.PackageReader;
 import net.shrimpworks.unreal.packages.entities.ExportedObject;
 import net.shrimpworks.unreal.packages.entities.Import;
 import net.shrimpworks.unreal.packages.entities.Name;
@@ -83,11 +83,13 @@ public class IndexUtils {
 		if (files.stream().anyMatch(f -> Util.extension(f.file).equalsIgnoreCase("un2"))) return Games.UNREAL_2;
 
 		for (Incoming.IncomingFile file : files) {
-			try (Package pkg = new Package(new PackageReader(file.asChannel()))) {
-				if (pkg.version < 68) return Games.UNREAL;
+			try {
+				int version = incoming.context.analysis.get(file, f -> f.version, AnalysisCache.Facts::withVersion,
+															() -> file.asPackage().version);
+				if (version < 68) return Games.UNREAL;
 					// FIXME Rune uses version 69 it seems, which overlaps with UT
-				else if (pkg.version < 117) return Games.UNREAL_TOURNAMENT;
-				else if (pkg.version < 200) return Games.UNREAL_TOURNAMENT_2004;
+				else if (version < 117) return Games.UNREAL_TOURNAMENT;
+				else if (version < 200) return Games.UNREAL_TOURNAMENT_2004;
 				else return Games.UNREAL_TOURNAMENT_3;
 			} catch (Exception e) {
 				incoming.log.log(IndexLog.EntryType.CONTINUE, "Could not determine game from file " + file.fileName(), e);
@@ -157,15 +159,6 @@ public class IndexUtils {
 				}
 			} catch (Exception e) {
 				incoming.log.log(IndexLog.EntryType.CONTINUE, "Failed to read screenshot from packages", e);
-			} finally {
-				// cleanup if we spun up an external package for screenshots
-				if (shotPackage != map) {
-					try {
-						shotPackage.close();
-					} catch (IOException e) {
-						incoming.log.log(IndexLog.EntryType.INFO, "Screenshot cleanup failed", e);
-					}
-				}
 			}
 		} else {
 			// there's no Screenshot property, lets hunt through the package for possible screenshots
@@ -295,6 +288,9 @@ public class IndexUtils {
 
 	/**
 	 * Search for a package within the indexed content.
+	 * <p>
+	 * The package is shared with other users of the content, and is closed
+	 * along with the {@link Incoming}, so should not be closed by callers.
 	 *
 	 * @param incoming content being indexed
 	 * @param pkg      package to find
@@ -306,7 +302,7 @@ public class IndexUtils {
 			String name = f.fileName();
 			name = name.substring(0, name.lastIndexOf("."));
 			if (name.equalsIgnoreCase(pkg)) {
-				return new Package(new PackageReader(f.asChannel()));
+				return f.asPackage();
 			}
 		}
 		throw new IllegalStateException("Failed to find package " + pkg);
@@ -511,13 +507,27 @@ public class IndexUtils {
 		};
 
 		Map<String, List<Addon.Dependency>> dependencies = new HashMap<>();
+
+		// use previously resolved results where possible, and only resolve the remaining packages
+		Map<Incoming.IncomingFile, String> unresolved = new HashMap<>();
+		Set<Incoming.IncomingFile> packages = incoming.files(FileType.PACKAGES);
+		for (Incoming.IncomingFile file : incoming.files(FileType.CODE, FileType.MAP, FileType.TEXTURE,
+														 FileType.STATICMESH, FileType.ANIMATION)) {
+			String key = dependencyKey(game, incoming, file, packages);
+			List<Addon.Dependency> cached = key == null ? null : incoming.context.dependencies.get(key);
+			if (cached == null) unresolved.put(file, key);
+			else if (!cached.isEmpty()) dependencies.put(file.fileName(), new ArrayList<>(cached));
+		}
+
+		if (unresolved.isEmpty()) return dependencies;
+
 		try {
-			DependencyResolver resolver = new DependencyResolver(incoming.contentRoot, NativePackages.DEFAULT, e -> {
+			// packages must be on disk for dependency resolution
+			DependencyResolver resolver = new DependencyResolver(incoming.materialise(FileType.PACKAGES), NativePackages.DEFAULT, e -> {
 				incoming.log.log(IndexLog.EntryType.CONTINUE, "Dependency resolution error for " + e.file.toString(), e);
 			});
 
-			for (Incoming.IncomingFile file : incoming.files(FileType.CODE, FileType.MAP, FileType.TEXTURE,
-															 FileType.STATICMESH, FileType.ANIMATION)) {
+			unresolved.forEach((file, key) -> {
 				List<Addon.Dependency> depList = new ArrayList<>();
 				try {
 					Map<String, Set<Resolved>> resolved = resolver.resolve(Util.plainName(file.fileName()));
@@ -526,18 +536,54 @@ public class IndexUtils {
 							depList.add(new Addon.Dependency(resolveDependency(v), k, null));
 						}
 					});
+					if (key != null) incoming.context.dependencies.put(key, depList);
 				} catch (Throwable e) {
 					incoming.log.log(IndexLog.EntryType.CONTINUE, "Dependency resolution error for " + file.fileName(), e);
 				}
 
 				if (!depList.isEmpty()) dependencies.put(file.fileName(), depList);
-			}
+			});
 		} catch (IOException e) {
 			incoming.log.log(IndexLog.EntryType.CONTINUE, "Dependency resolution failed for " + incoming.submission.filePath, e);
 		}
 		return dependencies;
 	}
 
+	/**
+	 * Generate a {@link DependencyCache} key for a package, which accounts for
+	 * the other packages within content its dependencies may be resolved against.
+	 *
+	 * @param game     game dependencies are resolved for
+	 * @param incoming content being indexed
+	 * @param file     package to resolve dependencies of
+	 * @param packages all packages within the content
+	 * @return cache key, or null if packages could not be read
+	 */
+	private static String dependencyKey(Games game, Incoming incoming, Incoming.IncomingFile file,
+										Collection<Incoming.IncomingFile> packages) {
+		try {
+			return DependencyCache.key(game, file, DependencyCache.companions(
+				file, packages, f -> incoming.context.dependencies.imports(f, IndexUtils::packageImports)
+			));
+		} catch (Exception e) {
+			incoming.log.log(IndexLog.EntryType.CONTINUE, "Could not read imports of " + file.fileName() + " for dependency cache", e);
+			return null;
+		}
+	}
+
+	/**
+	 * @param file package file
+	 * @return names of the packages the package imports objects from
+	 */
+	private static Set<String> packageImports(Incoming.IncomingFile file) {
+		Set<String> names = new HashSet<>();
+		for (Import i : file.asPackage().imports) {
+			// only the outermost import names a package, others are groups or objects within it
+			if (!(i.packageIndex.get() instanceof Import)) names.add(i.name.name);
+		}
+		return names;
+	}
+
 	private static Addon.DependencyStatus resolveDependency(Set<Resolved> resolved) {
 		Addon.DependencyStatus result = null;
 		for (Resolved r : resolved) {
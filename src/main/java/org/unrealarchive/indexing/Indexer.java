@@ -8,21 +8,28 @@ import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Deque;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import org.unrealarchive.common.Util;
 import org.unrealarchive.common.YAML;
@@ -38,20 +45,34 @@ public class Indexer {
 		"zip", "rar", "ace", "7z", "cab", "tgz", "gz", "tar", "bz2", "exe", "umod", "ut2mod", "ut4mod"
 	);
 
+	// interval, in seconds, at which pipeline status is reported while indexing
+	private static final long STATUS_INTERVAL = 30;
+
 	private final SimpleAddonRepository repo;
 	private final ContentManager contentManager;
 	private final IndexerEvents events;
 	private final IndexerPostProcessor postProcessor;
+	private final IndexContext context;
 
 	public Indexer(SimpleAddonRepository repo, ContentManager contentManager, IndexerEvents events) {
 		this(repo, contentManager, events, new IndexerPostProcessor() {});
 	}
 
 	public Indexer(SimpleAddonRepository repo, ContentManager contentManager, IndexerEvents events, IndexerPostProcessor postProcessor) {
+		this(repo, contentManager, events, postProcessor, IndexContext.DEFAULT);
+	}
+
+	public Indexer(SimpleAddonRepository repo, ContentManager contentManager, IndexerEvents events, IndexContext context) {
+		this(repo, contentManager, events, new IndexerPostProcessor() {}, context);
+	}
+
+	public Indexer(SimpleAddonRepository repo, ContentManager contentManager, IndexerEvents events, IndexerPostProcessor postProcessor,
+				   IndexContext context) {
 		this.repo = repo;
 		this.contentManager = contentManager;
 		this.events = events;
 		this.postProcessor = postProcessor;
+		this.context = context;
 	}
 
 	/**
@@ -80,10 +101,16 @@ public class Indexer {
 	 * implementation, which further enriches it, and finally returns it via a
 	 * {@link Consumer}.
 	 *
+	 * <p>
+	 * Files are passed through a staged pipeline, where each {@link Stage} has its
+	 * own bounded queue and pool of workers, so that CPU-heavy stages such as
+	 * extraction and indexing may proceed while uploads are in progress. The
+	 * concurrency of each stage is configured via a {@link Pipeline}.
+	 *
 	 * @param force       if content has already been indexed, index it again
 	 * @param newOnly     if true, only attempt to index content with unknown file hashes
-	 * @param concurrency number of worker threads to use for indexing; defaults to 1.
-	 *                    useful when indexing large directories of content
+	 * @param concurrency number of worker threads to use for each indexing stage;
+	 *                    defaults to 1. useful when indexing large directories of content
 	 * @param forceType   if not null, use the specified content type, rather than
 	 *                    attempting to discover it automatically
 	 * @param forceGame   if not null, forces this game
@@ -92,53 +119,179 @@ public class Indexer {
 	 */
 	public void index(boolean force, boolean newOnly, int concurrency, SimpleAddonType forceType, Games forceGame, Path... inputPath)
 		throws IOException {
-		final List<IndexLog> indexLogs = new ArrayList<>();
+		index(force, newOnly, Pipeline.of(concurrency), forceType, forceGame, inputPath);
+	}
+
+	/**
+	 * Indexes a path or individual file, using the stage concurrency and queue
+	 * sizes provided.
+	 *
+	 * @param force     if content has already been indexed, index it again
+	 * @param newOnly   if true, only attempt to index content with unknown file hashes
+	 * @param pipeline  indexing pipeline configuration
+	 * @param forceType if not null, use the specified content type, rather than
+	 *                  attempting to discover it automatically
+	 * @param forceGame if not null, forces this game
+	 * @param inputPath directories or file paths to index
+	 * @throws IOException file access failure
+	 * @see #index(boolean, boolean, int, SimpleAddonType, Games, Path...)
+	 */
+	public void index(boolean force, boolean newOnly, Pipeline pipeline, SimpleAddonType forceType, Games forceGame, Path... inputPath)
+		throws IOException {
+		final Collection<IndexLog> indexLogs = new ConcurrentLinkedQueue<>();
 
 		// keep a counter of number of files processed
 		final AtomicInteger done = new AtomicInteger();
 		final AtomicInteger allFound = new AtomicInteger();
 
-		// create a task to feed workers with incoming files asynchronously
-		final BlockingDeque<Submission> all = new LinkedBlockingDeque<>();
-		final CompletableFuture<Void> filesTask = CompletableFuture.runAsync(() -> {
-			for (Path p : inputPath) {
+		final PipelineStage<Job> hash = new PipelineStage<>(Stage.HASH, pipeline);
+		final PipelineStage<Job> extract = new PipelineStage<>(Stage.EXTRACT, pipeline);
+		final PipelineStage<Job> index = new PipelineStage<>(Stage.INDEX, pipeline);
+		final PipelineStage<Indexed> upload = new PipelineStage<>(Stage.UPLOAD, pipeline);
+		final PipelineStage<Indexed> commit = new PipelineStage<>(Stage.COMMIT, pipeline);
+		final List<PipelineStage<?>> stages = List.of(hash, extract, index, upload, commit);
+
+		final BiConsumer<Job, Optional<IndexResult<? extends Addon>>> finish = (job, result) -> {
+			events.indexed(job.sub, result, job.log);
+			events.progress(done.incrementAndGet(), allFound.get(), job.sub.filePath);
+		};
+
+		final long start = System.currentTimeMillis();
+		final AtomicLong discovered = new AtomicLong();
+		final Supplier<List<StageStatus>> status = () -> {
+			final long elapsed = System.currentTimeMillis() - start;
+			final List<StageStatus> result = new ArrayList<>();
+			final long discoverMillis = discovered.get() > 0 ? discovered.get() - start : elapsed;
+			result.add(new StageStatus(Stage.DISCOVER, 1, 0, 0, allFound.get(), discoverMillis, elapsed));
+			for (PipelineStage<?> s : stages) result.add(s.status(elapsed));
+			return result;
+		};
+
+		final ExecutorService discoverExecutor = Executors.newSingleThreadExecutor();
+		// reads details of files within content, shared by all indexing workers
+		final ExecutorService prefetchExecutor = Executors.newFixedThreadPool(pipeline.concurrency(Stage.INDEX));
+		final ScheduledExecutorService monitor = Executors.newSingleThreadScheduledExecutor();
+		try {
+			monitor.scheduleAtFixedRate(() -> events.pipeline(status.get()), STATUS_INTERVAL, STATUS_INTERVAL, TimeUnit.SECONDS);
+
+			// discover files to be indexed, feeding them into the hash stage
+			final CompletableFuture<Void> discover = CompletableFuture.runAsync(() -> {
 				try {
-					findFiles(p, newOnly, all, allFound);
-				} catch (IOException ex) {
-					throw new RuntimeException("Failed to find files in path " + p, ex);
+					for (Path p : inputPath) {
+						try {
+							findFiles(p, newOnly, sub -> {
+								final Job job = new Job(sub, new IndexLog());
+								hash.put(job);
+								indexLogs.add(job.log);
+							}, allFound);
+						} catch (IOException ex) {
+							throw new RuntimeException("Failed to find files in path " + p, ex);
+						}
+					}
+				} finally {
+					discovered.set(System.currentTimeMillis());
 				}
-			}
-		});
+			}, discoverExecutor);
 
-		// generate the requested number of workers according to concurrency specified
-		final CompletableFuture<?>[] workers = new CompletableFuture[concurrency];
-		for (int i = 0; i < concurrency; i++) {
-			workers[i] = CompletableFuture.runAsync(() -> {
-				do {
-					try {
-						// keep waiting for files
-						Submission sub = all.pollFirst(500, TimeUnit.MILLISECONDS);
-						if (sub == null) continue;
+			// hash files, and check out existing content
+			hash.start(discover, job -> {
+				if (forceGame != null) job.sub.override.overrides.put("game", forceGame.name);
+
+				try {
+					job.incoming = new Incoming(job.sub, job.log, context, prefetchExecutor);
+					job.content = checkout(job.incoming, force);
+				} catch (Throwable e) {
+					fail(job, e, finish);
+					return;
+				}
+
+				extract.put(job);
+			}, (job, e) -> fail(job, e, finish));
+
+			// unpack files onto disk
+			extract.start(hash.done, job -> {
+				try {
+					job.incoming.prepare();
+				} catch (Throwable e) {
+					fail(job, e, finish);
+					return;
+				}
 
-						if (forceGame != null) sub.override.overrides.put("game", forceGame.name);
+				index.put(job);
+			}, (job, e) -> fail(job, e, finish));
 
-						IndexLog log = new IndexLog();
-						indexLogs.add(log);
+			// classify and index content
+			index.start(extract.done, job -> {
+				final List<Indexed> results = new ArrayList<>();
+				try (Incoming incoming = job.incoming) {
+					AddonClassifier.AddonIdentifier ident = forceType == null
+						? AddonClassifier.classify(incoming)
+						: AddonClassifier.identifierForType(forceType);
 
-						indexFile(sub, log, force, forceType, result -> {
-							events.indexed(sub, result, log);
-							events.progress(done.incrementAndGet(), allFound.get(), sub.filePath);
-						});
-					} catch (InterruptedException e) {
-						System.err.printf("Error encountered while processing index queue: %s%n", e.getMessage());
+					// TODO better way to handle re-indexing - we already have content, but if type changes we can't re-use it
+					if (job.content == null || !ident.contentType().toString().equalsIgnoreCase(job.content.contentType)) {
+						job.content = AddonClassifier.newContent(ident, incoming);
 					}
-				} while (!filesTask.isDone() || !all.isEmpty());
-				// end when after we've completed work, and there are no more files incoming
-			});
+
+					if (job.content == null || ident.contentType() == SimpleAddonType.UNKNOWN) {
+						job.log.log(IndexLog.EntryType.CONTINUE, String.format("No content identified in %s", job.sub.filePath.getFileName()));
+						finish.accept(job, Optional.empty());
+						return;
+					}
+
+					ident.indexer().get().index(incoming, job.content, result -> {
+						try {
+							postIndex(incoming, job.log, result);
+							results.add(new Indexed(job, result));
+						} catch (IOException e) {
+							job.log.log(IndexLog.EntryType.FATAL, "Failed to store content file data for " + job.sub.filePath.toString(), e);
+							finish.accept(job, Optional.of(result));
+						}
+					});
+				} catch (Throwable e) {
+					job.log.log(IndexLog.EntryType.FATAL, e.getMessage(), e);
+					finish.accept(job, Optional.empty());
+					return;
+				}
+
+				for (Indexed r : results) upload.put(r);
+			}, (job, e) -> fail(job, e, finish));
+
+			// upload attachments and files, via the content manager's upload queue
+			upload.start(index.done, item -> {
+				try {
+					if (ContentManager.await(contentManager.upload(item.result, item.job.sub))) {
+						commit.put(item);
+						return;
+					}
+				} catch (IOException | RuntimeException e) {
+					item.job.log.log(IndexLog.EntryType.FATAL, "Failed to store content file data for " + item.job.sub.filePath.toString(), e);
+				}
+
+				finish.accept(item.job, Optional.of(item.result));
+			}, (item, e) -> fail(item, e, finish));
+
+			// write content to the repository
+			commit.start(upload.done, item -> {
+				try {
+					contentManager.commit(item.result);
+				} catch (IOException | RuntimeException e) {
+					item.job.log.log(IndexLog.EntryType.FATAL, "Failed to store content file data for " + item.job.sub.filePath.toString(), e);
+				}
+
+				finish.accept(item.job, Optional.of(item.result));
+			}, (item, e) -> fail(item, e, finish));
+
+			// wait for all stages to complete
+			commit.done.join();
+		} finally {
+			monitor.shutdownNow();
+			discoverExecutor.shutdownNow();
+			prefetchExecutor.shutdownNow();
+			for (PipelineStage<?> s : stages) s.close();
 		}
 
-		// wait for all workers to complete
-		CompletableFuture.allOf(workers).join();
+		events.pipeline(status.get());
 
 		int errorCount = 0;
 
@@ -149,7 +302,18 @@ public class Indexer {
 		events.completed(indexLogs.size(), errorCount);
 	}
 
-	private void findFiles(Path inputPath, boolean newOnly, Deque<Submission> all, AtomicInteger allFound) throws IOException {
+	private void fail(Job job, Throwable e, BiConsumer<Job, Optional<IndexResult<? extends Addon>>> finish) {
+		job.log.log(IndexLog.EntryType.FATAL, e.getMessage(), e);
+		if (job.incoming != null) job.incoming.close();
+		finish.accept(job, Optional.empty());
+	}
+
+	private void fail(Indexed item, Throwable e, BiConsumer<Job, Optional<IndexResult<? extends Addon>>> finish) {
+		item.job.log.log(IndexLog.EntryType.FATAL, "Failed to store content file data for " + item.job.sub.filePath.toString(), e);
+		finish.accept(item.job, Optional.of(item.result));
+	}
+
+	private void findFiles(Path inputPath, boolean newOnly, StageWork<Submission> found, AtomicInteger allFound) throws IOException {
 		if (Files.isDirectory(inputPath)) {
 			Files.walkFileTree(inputPath, new SimpleFileVisitor<>() {
 
@@ -159,7 +323,7 @@ public class Indexer {
 				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
 					try {
 						if (INCLUDE_TYPES.contains(Util.extension(file).toLowerCase())) {
-							if (newOnly && repo.forHash(Util.hash(file)) != null) return FileVisitResult.CONTINUE;
+							if (newOnly && repo.forHash(Util.hash(file, context.hashes)) != null) return FileVisitResult.CONTINUE;
 
 							Submission sub;
 							// if there's a submission file
@@ -173,7 +337,7 @@ public class Indexer {
 
 							SubmissionOverride override = findOverride(file, overrides);
 							if (override != null) sub.override = override;
-							all.addLast(sub);
+							found.process(sub);
 							allFound.incrementAndGet();
 						}
 					} catch (Throwable t) {
@@ -193,7 +357,7 @@ public class Indexer {
 
 			});
 		} else {
-			if (newOnly && repo.forHash(Util.hash(inputPath)) != null) return;
+			if (newOnly && repo.forHash(Util.hash(inputPath, context.hashes)) != null) return;
 
 			Submission sub;
 			// if there's a submission file
@@ -207,7 +371,11 @@ public class Indexer {
 
 			SubmissionOverride override = findOverride(inputPath, new HashMap<>());
 			if (override != null) sub.override = override;
-			all.add(sub);
+			try {
+				found.process(sub);
+			} catch (InterruptedException e) {
+				throw new IOException("Interrupted while queueing file " + inputPath, e);
+			}
 			allFound.incrementAndGet();
 		}
 	}
@@ -253,94 +421,76 @@ public class Indexer {
 		return result;
 	}
 
-	private void indexFile(
-		Submission sub, IndexLog log, boolean force, SimpleAddonType forceType, Consumer<Optional<IndexResult<? extends Addon>>> done) {
-		try (Incoming incoming = new Incoming(sub, log)) {
-			identifyContent(incoming, force, forceType, (ident, content) -> {
-				if (content == null || ident.contentType() == SimpleAddonType.UNKNOWN) {
-					log.log(IndexLog.EntryType.CONTINUE, String.format("No content identified in %s", sub.filePath.getFileName()));
-					done.accept(Optional.empty());
-					return;
+	/**
+	 * Post-processing applied to all indexed content, prior to upload.
+	 *
+	 * @param incoming incoming content which was indexed
+	 * @param log      index log
+	 * @param result   indexing result
+	 * @throws IOException failed to update variations of the content
+	 */
+	private void postIndex(Incoming incoming, IndexLog log, IndexResult<? extends Addon> result) throws IOException {
+		Addon current = repo.forHash(incoming.hash);
+
+		// hmm, post indexing cleanup... not great.
+		result.content.name = result.content.name.trim();
+		result.content.author = result.content.author.trim();
+
+		// check if the item is a variation of existing content
+		if (current == null) {
+			Optional<Addon> maybeNewest = repo.search(result.content.game, result.content.contentType,
+													  result.content.name, result.content.author)
+											  .stream().max(Comparator.comparing(a -> a.releaseDate));
+			Addon existing = maybeNewest.orElse(null);
+			if (existing != null) {
+				if (existing.variationOf == null && existing.releaseDate.compareTo(result.content.releaseDate) < 0) {
+					Addon variation = contentManager.checkout(existing.hash);
+					variation.variationOf = result.content.hash;
+					contentManager.checkin(new IndexResult<>(variation, Collections.emptySet()), null);
+					log.log(IndexLog.EntryType.CONTINUE,
+							String.format("Flagging original content %s variation", existing.originalFilename));
+				} else {
+					result.content.variationOf = existing.hash;
+					log.log(IndexLog.EntryType.CONTINUE,
+							String.format("Flagging as variation of %s", existing.originalFilename));
 				}
+			}
+		}
 
-				ident.indexer().get().index(incoming, content, result -> {
-					try {
-						Addon current = repo.forHash(incoming.hash);
-
-						// hmm, post indexing cleanup... not great.
-						result.content.name = result.content.name.trim();
-						result.content.author = result.content.author.trim();
-
-						// check if the item is a variation of existing content
-						if (current == null) {
-							Optional<Addon> maybeNewest = repo.search(result.content.game, result.content.contentType,
-																	  result.content.name, result.content.author)
-															  .stream().max(Comparator.comparing(a -> a.releaseDate));
-							Addon existing = maybeNewest.orElse(null);
-							if (existing != null) {
-								if (existing.variationOf == null && existing.releaseDate.compareTo(result.content.releaseDate) < 0) {
-									Addon variation = contentManager.checkout(existing.hash);
-									variation.variationOf = result.content.hash;
-									contentManager.checkin(new IndexResult<>(variation, Collections.emptySet()), null);
-									log.log(IndexLog.EntryType.CONTINUE,
-											String.format("Flagging original content %s variation", existing.originalFilename));
-								} else {
-									result.content.variationOf = existing.hash;
-									log.log(IndexLog.EntryType.CONTINUE,
-											String.format("Flagging as variation of %s", existing.originalFilename));
-								}
-							}
-						}
-
-						// add dependencies
-						result.content.dependencies = IndexUtils.dependencies(result.content, incoming);
-
-						postProcessor.indexed(sub, current, result);
+		// add dependencies
+		result.content.dependencies = IndexUtils.dependencies(result.content, incoming);
 
-						if (result.content.name.isEmpty()) {
-							throw new IllegalStateException("Name cannot be blank for " + incoming.submission.filePath);
-						}
+		postProcessor.indexed(incoming.submission, current, result);
 
-						// before checkin, remove any "new" attachments which already exist... this is a bit of a hack
-						if (current != null) {
-							result.files.removeIf(f -> {
-								if (current.attachments.stream().anyMatch(a -> a.name.equals(f.name))) {
-									try {
-										Files.deleteIfExists(f.path);
-									} catch (IOException e) {
-										log.log(IndexLog.EntryType.CONTINUE, "Failed to delete duplicate attachment" + f, e);
-									}
-									return true;
-								}
-								return false;
-							});
-						}
+		if (result.content.name.isEmpty()) {
+			throw new IllegalStateException("Name cannot be blank for " + incoming.submission.filePath);
+		}
 
-						contentManager.checkin(result, incoming.submission);
+		// before checkin, remove any "new" attachments which already exist... this is a bit of a hack
+		if (current != null) {
+			result.files.removeIf(f -> {
+				if (current.attachments.stream().anyMatch(a -> a.name.equals(f.name))) {
+					try {
+						Files.deleteIfExists(f.path);
 					} catch (IOException e) {
-						log.log(IndexLog.EntryType.FATAL, "Failed to store content file data for " + sub.filePath.toString(), e);
+						log.log(IndexLog.EntryType.CONTINUE, "Failed to delete duplicate attachment" + f, e);
 					}
-
-					done.accept(Optional.of(result));
-				});
+					return true;
+				}
+				return false;
 			});
-		} catch (Throwable e) {
-			log.log(IndexLog.EntryType.FATAL, e.getMessage(), e);
-			done.accept(Optional.empty());
 		}
 	}
 
 	/**
-	 * Prepare and identify content for indexing.
+	 * Check out existing content for re-indexing.
 	 *
-	 * @param incoming  incoming content to be indexed
-	 * @param force     whether to force re-indexing of known content
-	 * @param forceType force the content type to this, null to auto-detect
-	 * @param done      called once content has been identified and instantiated, either result may be null
-	 * @throws IOException failed to read content files
+	 * @param incoming incoming content to be indexed
+	 * @param force    whether to force re-indexing of known content
+	 * @return existing content to be re-indexed, or null if content should be indexed as new
+	 * @throws IOException failed to update existing content
 	 */
-	private void identifyContent(Incoming incoming, boolean force, SimpleAddonType forceType,
-								 BiConsumer<AddonClassifier.AddonIdentifier, Addon> done) throws IOException {
+	private Addon checkout(Incoming incoming, boolean force) throws IOException {
 		Addon content = contentManager.checkout(incoming.hash);
 
 		if ((content != null && !force)) {
@@ -356,20 +506,236 @@ public class Indexer {
 			content = null;
 		}
 
-		incoming.prepare();
+		return content;
+	}
+
+	/**
+	 * The stages of the indexing pipeline, in the order files pass through them.
+	 */
+	public enum Stage {
+		/** walking input paths for files to index */
+		DISCOVER,
+		/** hashing files, and checking out existing content */
+		HASH,
+		/** unpacking files onto disk */
+		EXTRACT,
+		/** classifying and indexing content, including package parsing and screenshot generation */
+		INDEX,
+		/** uploading files and screenshots to data stores */
+		UPLOAD,
+		/** writing content to the repository */
+		COMMIT
+	}
+
+	/**
+	 * Concurrency and queue size configuration for each {@link Stage} of the
+	 * indexing pipeline.
+	 * <p>
+	 * Discovery always uses a single worker. A stage's queue holds the items
+	 * waiting to be processed by that stage, and when full, the preceding stage
+	 * will wait for space, so only a bounded amount of work (and extracted
+	 * content on disk) is ever in progress.
+	 */
+	public static class Pipeline {
+
+		private final Map<Stage, Integer> concurrency = new EnumMap<>(Stage.class);
+		private final Map<Stage, Integer> capacity = new EnumMap<>(Stage.class);
+
+		/**
+		 * Create a pipeline configuration with the same concurrency for all stages.
+		 *
+		 * @param concurrency number of workers per stage
+		 * @return pipeline configuration
+		 */
+		public static Pipeline of(int concurrency) {
+			Pipeline pipeline = new Pipeline();
+			for (Stage stage : Stage.values()) {
+				if (stage != Stage.DISCOVER) pipeline.concurrency(stage, concurrency);
+			}
+			return pipeline;
+		}
+
+		/**
+		 * @param stage       stage to configure
+		 * @param concurrency number of workers for the stage
+		 * @return this configuration
+		 */
+		public Pipeline concurrency(Stage stage, int concurrency) {
+			if (stage == Stage.DISCOVER) throw new IllegalArgumentException("Concurrency of discovery can not be changed");
+			if (concurrency < 1) throw new IllegalArgumentException("Concurrency must be at least 1 for stage " + stage);
+			this.concurrency.put(stage, concurrency);
+			return this;
+		}
+
+		/**
+		 * @param stage    stage to configure
+		 * @param capacity maximum number of items waiting to be processed by the stage
+		 * @return this configuration
+		 */
+		public Pipeline capacity(Stage stage, int capacity) {
+			if (stage == Stage.DISCOVER) throw new IllegalArgumentException("Discovery does not have a queue");
+			if (capacity < 1) throw new IllegalArgumentException("Queue capacity must be at least 1 for stage " + stage);
+			this.capacity.put(stage, capacity);
+			return this;
+		}
+
+		public int concurrency(Stage stage) {
+			return concurrency.getOrDefault(stage, 1);
+		}
+
+		/**
+		 * @param stage stage
+		 * @return the stage's queue capacity, which defaults to twice its concurrency
+		 */
+		public int capacity(Stage stage) {
+			return capacity.getOrDefault(stage, concurrency(stage) * 2);
+		}
+	}
+
+	/**
+	 * A point-in-time snapshot of a pipeline stage's progress.
+	 *
+	 * @param stage         the stage
+	 * @param concurrency   number of workers
+	 * @param queued        number of items waiting to be processed
+	 * @param capacity      queue capacity
+	 * @param processed     number of items processed
+	 * @param busyMillis    total time workers have spent processing items
+	 * @param elapsedMillis time since indexing started
+	 */
+	public record StageStatus(Stage stage, int concurrency, int queued, int capacity, int processed, long busyMillis,
+							  long elapsedMillis) {
+
+		/**
+		 * @return items processed per second
+		 */
+		public double throughput() {
+			return elapsedMillis == 0 ? 0 : processed * 1000d / elapsedMillis;
+		}
+
+		/**
+		 * @return fraction of the available worker time spent processing items
+		 */
+		public double utilisation() {
+			return elapsedMillis == 0 ? 0 : (double)busyMillis / (elapsedMillis * concurrency);
+		}
+	}
+
+	@FunctionalInterface
+	private interface StageWork<T> {
+
+		public void process(T item) throws InterruptedException;
+	}
+
+	/**
+	 * A stage of the indexing pipeline, consisting of an input queue, and a
+	 * dedicated pool of workers processing items from it.
+	 */
+	private static class PipelineStage<T> {
+
+		private final Stage stage;
+		private final int concurrency;
+		private final BlockingQueue<T> queue;
+		private final ExecutorService executor;
+
+		private final AtomicInteger processed = new AtomicInteger();
+		private final AtomicLong busyNanos = new AtomicLong();
+
+		private CompletableFuture<Void> done;
+
+		private PipelineStage(Stage stage, Pipeline pipeline) {
+			this.stage = stage;
+			this.concurrency = pipeline.concurrency(stage);
+			this.queue = new ArrayBlockingQueue<>(pipeline.capacity(stage));
+			this.executor = Executors.newFixedThreadPool(concurrency);
+		}
+
+		private void put(T item) throws InterruptedException {
+			queue.put(item);
+		}
 
-		AddonClassifier.AddonIdentifier ident = forceType == null
-			? AddonClassifier.classify(incoming)
-			: AddonClassifier.identifierForType(forceType);
+		/**
+		 * Start this stage's workers, which will continue until the upstream
+		 * stage has completed, and there are no more items in the queue.
+		 * <p>
+		 * Any item whose processing does not complete normally is passed to
+		 * `failed`, so it is always accounted for. If a worker is interrupted
+		 * it stops taking further items.
+		 */
+		private void start(CompletableFuture<?> upstream, StageWork<T> work, BiConsumer<T, Throwable> failed) {
+			final CompletableFuture<?>[] workers = new CompletableFuture[concurrency];
+			for (int i = 0; i < concurrency; i++) {
+				workers[i] = CompletableFuture.runAsync(() -> {
+					do {
+						// keep waiting for items
+						final T item;
+						try {
+							item = queue.poll(500, TimeUnit.MILLISECONDS);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							break;
+						}
+						if (item == null) continue;
+
+						final long started = System.nanoTime();
+						try {
+							work.process(item);
+						} catch (InterruptedException e) {
+							System.err.printf("Interrupted while processing %s queue%n", stage);
+							failed(item, e, failed);
+							Thread.currentThread().interrupt();
+							break;
+						} catch (Throwable t) {
+							System.err.printf("Unexpected error in %s stage: %s%n", stage, t);
+							failed(item, t, failed);
+						} finally {
+							busyNanos.addAndGet(System.nanoTime() - started);
+							processed.incrementAndGet();
+						}
+					} while (!upstream.isDone() || !queue.isEmpty());
+					// end when after we've completed work, and there are no more items incoming
+				}, executor);
+			}
+			this.done = CompletableFuture.allOf(workers);
+		}
 
-		// TODO better way to handle re-indexing - we already have content, but if type changes we can't re-use it
-		if (content == null || !ident.contentType().toString().equalsIgnoreCase(content.contentType)) {
-			content = AddonClassifier.newContent(ident, incoming);
+		private void failed(T item, Throwable cause, BiConsumer<T, Throwable> failed) {
+			try {
+				failed.accept(item, cause);
+			} catch (Throwable t) {
+				System.err.printf("Failed to complete failed item in %s stage: %s%n", stage, t);
+			}
 		}
 
-		done.accept(ident, content);
+		private StageStatus status(long elapsedMillis) {
+			return new StageStatus(stage, concurrency, queue.size(), queue.size() + queue.remainingCapacity(), processed.get(),
+								   TimeUnit.NANOSECONDS.toMillis(busyNanos.get()), elapsedMillis);
+		}
+
+		private void close() {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * The state of a single submission as it passes through the pipeline.
+	 */
+	private static class Job {
+
+		private final Submission sub;
+		private final IndexLog log;
+
+		private Incoming incoming;
+		private Addon content;
+
+		private Job(Submission sub, IndexLog log) {
+			this.sub = sub;
+			this.log = log;
+		}
 	}
 
+	private record Indexed(Job job, IndexResult<? extends Addon> result) {}
+
 	public interface IndexerPostProcessor {
 
 		public default void indexed(Submission sub, Addon before, IndexResult<? extends Addon> result) {
@@ -393,6 +759,14 @@ public class Indexer {
 		public void indexed(Submission submission, Optional<IndexResult<? extends Addon>> indexed, IndexLog log);
 
 		public void completed(int indexedFiles, int errorCount);
+
+		/**
+		 * Called periodically while indexing, and once all files have been indexed,
+		 * with the progress of each pipeline stage.
+		 *
+		 * @param stages status of each stage
+		 */
+		public default void pipeline(List<StageStatus> stages) {}
 	}
 
 	public static class CLIEventPrinter implements IndexerEvents {
@@ -423,6 +797,16 @@ public class Indexer {
 			}
 		}
 
+		@Override
+		public void pipeline(List<StageStatus> stages) {
+			System.out.printf("%nPipeline status:%n");
+			for (StageStatus s : stages) {
+				System.out.printf("  %-8s %3d worker(s), queue %4d / %-4d %7d done %8.2f/s %4.0f%% busy%n",
+								  s.stage(), s.concurrency(), s.queued(), s.capacity(), s.processed(),
+								  s.throughput(), s.utilisation() * 100);
+			}
+		}
+
 		@Override
 		public void completed(int indexedFiles, int errorCount) {
 			System.out.printf("%nCompleted indexing %d files, with %d errors%n", indexedFiles, errorCount);
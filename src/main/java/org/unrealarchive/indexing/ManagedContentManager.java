@@ -14,6 +14,7 @@ import java.util.stream.Collectors;
 import org.unrealarchive.common.Platform;
 import org.unrealarchive.common.Util;
 import org.unrealarchive.common.YAML;
+import org.unrealarchive.content.ChangeJournal;
 import org.unrealarchive.content.Download;
 import org.unrealarchive.content.Games;
 import org.unrealarchive.content.managed.Managed;
@@ -25,9 +26,22 @@ public class ManagedContentManager {
 	private final ManagedContentRepository repo;
 	private final DataStore contentStore;
 
+	private final ChangeJournal journal;
+	private final IndexContext context;
+
 	public ManagedContentManager(ManagedContentRepository repo, DataStore contentStore) {
+		this(repo, contentStore, ChangeJournal.NONE);
+	}
+
+	public ManagedContentManager(ManagedContentRepository repo, DataStore contentStore, ChangeJournal journal) {
+		this(repo, contentStore, journal, IndexContext.DEFAULT);
+	}
+
+	public ManagedContentManager(ManagedContentRepository repo, DataStore contentStore, ChangeJournal journal, IndexContext context) {
 		this.repo = repo;
 		this.contentStore = contentStore;
+		this.journal = journal;
+		this.context = context;
 	}
 
 	public ManagedContentRepository repo() {
@@ -36,7 +50,7 @@ public class ManagedContentManager {
 
 	public Managed checkout(Managed managed) {
 		try {
-			return YAML.fromString(YAML.toString(managed), Managed.class);
+			return YAML.copy(managed, Managed.class);
 		} catch (IOException e) {
 			throw new IllegalStateException("Cannot clone content " + managed.name());
 		}
@@ -44,7 +58,9 @@ public class ManagedContentManager {
 
 	public void checkin(Managed managed) {
 		try {
+			final boolean added = repo.findManaged(Games.byName(managed.game), managed.group, managed.path, managed.title) == null;
 			repo.put(managed);
+			record(managed, added);
 		} catch (IOException e) {
 			throw new IllegalStateException("Cannot store content " + managed.name());
 		}
@@ -53,6 +69,7 @@ public class ManagedContentManager {
 	public void addFile(DataStore contentStore, Games game, String group, String path, String title, Path localFile,
 						Map<String, String> params)
 		throws IOException {
+		final boolean added = repo.findManaged(game, group, path, title) == null;
 		Managed managed = Optional.ofNullable(repo.findManaged(game, group, path, title))
 								  .or(() -> {
 									  try {
@@ -79,6 +96,14 @@ public class ManagedContentManager {
 		managed.downloads.add(dl);
 
 		repo.put(managed);
+		record(managed, added);
+	}
+
+	private void record(Managed managed, boolean added) throws IOException {
+		journal.record(added
+						   ? ChangeJournal.Operation.ADD
+						   : managed.deleted() ? ChangeJournal.Operation.DELETE : ChangeJournal.Operation.UPDATE,
+					   managed, managed.contentPath(Paths.get("")).toString());
 	}
 
 	public void sync(BiConsumer<Integer, Integer> progress) {
@@ -128,7 +153,7 @@ public class ManagedContentManager {
 				// other file stats (the null checks are added to populate fields added post initial implementation)
 				if (!file.synced || file.hash == null || file.originalFilename == null) {
 					file.fileSize = Files.size(localFile);
-					file.hash = Util.hash(localFile);
+					file.hash = Util.hash(localFile, context.hashes);
 					file.originalFilename = Util.fileName(localFile);
 					file.synced = true;
 				}
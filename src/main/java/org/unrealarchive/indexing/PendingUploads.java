@@ -0,0 +1,130 @@
+package org.unrealarchive.indexing;
+
+import java.beans.ConstructorProperties;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.unrealarchive.common.ArchiveUtil;
+import org.unrealarchive.common.YAML;
+import org.unrealarchive.content.addons.Addon;
+
+/**
+ * Persists content which could not be checked in because some of its
+ * uploads failed, so the uploads may be resumed later.
+ * <p>
+ * Each pending item is written as a YAML file named for the content's hash,
+ * and any files still to be uploaded are moved into a directory of the same
+ * name alongside it.
+ */
+public class PendingUploads {
+
+	/**
+	 * Discards pending uploads, and the files which were to be uploaded.
+	 */
+	public static final PendingUploads NONE = new PendingUploads(null);
+
+	private final Path root;
+
+	public PendingUploads(Path root) {
+		this.root = root;
+	}
+
+	/**
+	 * Record content with incomplete uploads.
+	 * <p>
+	 * The files to be uploaded are taken over by the pending uploads store,
+	 * and will be moved or deleted. If the submitted file itself has not been
+	 * uploaded, it is copied, since it may be a temporary download which will
+	 * not exist by the time uploads are resumed.
+	 *
+	 * @param indexed    content, along with the files which have not been uploaded
+	 * @param submission the submission the content was indexed from, may be null
+	 * @param submitted  true if the submitted file has not been uploaded
+	 * @throws IOException failed to store pending uploads
+	 */
+	public void add(IndexResult<? extends Addon> indexed, Submission submission, boolean submitted) throws IOException {
+		if (root == null) {
+			for (IndexResult.NewAttachment f : indexed.files) Files.deleteIfExists(f.path);
+			return;
+		}
+
+		final Path filesPath = Files.createDirectories(root.resolve(indexed.content.hash));
+		final Set<IndexResult.NewAttachment> files = new HashSet<>();
+		for (IndexResult.NewAttachment f : indexed.files) {
+			Path dest = filesPath.resolve(Paths.get(f.name).getFileName());
+			if (!f.path.toAbsolutePath().equals(dest.toAbsolutePath())) {
+				Files.move(f.path, dest, StandardCopyOption.REPLACE_EXISTING);
+			}
+			files.add(new IndexResult.NewAttachment(f.type, f.name, dest));
+		}
+
+		Submission pendingSubmission = submission;
+		if (submission != null && submitted) {
+			Path dest = filesPath.resolve(submission.filePath.getFileName());
+			if (!submission.filePath.toAbsolutePath().equals(dest.toAbsolutePath())) {
+				Files.copy(submission.filePath, dest, StandardCopyOption.REPLACE_EXISTING);
+			}
+			pendingSubmission = new Submission(dest, submission.sourceUrls);
+			pendingSubmission.override = submission.override;
+		}
+
+		Files.writeString(root.resolve(indexed.content.hash + ".yml"),
+						  YAML.toString(new Pending(indexed.content, files, pendingSubmission)));
+	}
+
+	/**
+	 * @return all pending uploads
+	 * @throws IOException failed to read pending uploads
+	 */
+	public List<Pending> all() throws IOException {
+		final List<Pending> pending = new ArrayList<>();
+		if (root == null || !Files.isDirectory(root)) return pending;
+
+		try (Stream<Path> files = Files.list(root)) {
+			for (Path p : files.filter(f -> f.toString().endsWith(".yml")).toList()) {
+				pending.add(YAML.fromFile(p, Pending.class));
+			}
+		}
+		return pending;
+	}
+
+	/**
+	 * Remove pending uploads for content, once they have been completed.
+	 *
+	 * @param hash content hash
+	 * @throws IOException failed to remove pending uploads
+	 */
+	public void remove(String hash) throws IOException {
+		if (root == null) return;
+
+		Files.deleteIfExists(root.resolve(hash + ".yml"));
+		if (Files.isDirectory(root.resolve(hash))) ArchiveUtil.cleanPath(root.resolve(hash));
+	}
+
+	@Override
+	public String toString() {
+		return String.format("PendingUploads [root=%s]", root);
+	}
+
+	public static class Pending {
+
+		public final Addon content;
+		public final Set<IndexResult.NewAttachment> files;
+		public final Submission submission;
+
+		@ConstructorProperties({ "content", "files", "submission" })
+		public Pending(Addon content, Set<IndexResult.NewAttachment> files, Submission submission) {
+			this.content = content;
+			this.files = files;
+			this.submission = submission;
+		}
+	}
+}
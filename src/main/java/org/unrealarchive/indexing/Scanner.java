@@ -28,9 +28,15 @@ public class Scanner {
 	private final Pattern nameExclude;
 	private final long maxFileSize;
 	private final int concurrency;
+	private final IndexContext context;
 
 	public Scanner(SimpleAddonRepository repository, CLI cli) {
+		this(repository, cli, IndexContext.DEFAULT);
+	}
+
+	public Scanner(SimpleAddonRepository repository, CLI cli, IndexContext context) {
 		this.repository = repository;
+		this.context = context;
 
 		this.newOnly = cli.option("new-only", "").equalsIgnoreCase("true") || cli.option("new-only", "").equalsIgnoreCase("1");
 		this.maxFileSize = Long.parseLong(cli.option("max-size", "0"));
@@ -119,7 +125,7 @@ public class Scanner {
 		Addon content = null;
 		SimpleAddonType classifiedType = SimpleAddonType.UNKNOWN;
 
-		try (Incoming incoming = new Incoming(sub, log)) {
+		try (Incoming incoming = new Incoming(sub, log, context, null)) {
 			content = repository.forHash(incoming.hash);
 
 			if (newOnly && content != null) return;
@@ -0,0 +1,96 @@
+package org.unrealarchive.indexing;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.unrealarchive.storage.DataStore;
+
+/**
+ * Performs data store uploads asynchronously, on a dedicated pool of
+ * threads, so slow remote stores do not hold up the caller.
+ * <p>
+ * Failed uploads are retried a limited number of times, with an increasing
+ * delay between attempts.
+ */
+public class UploadQueue {
+
+	public static final int DEFAULT_CONCURRENCY = 4;
+	public static final int DEFAULT_ATTEMPTS = 3;
+	public static final Duration DEFAULT_RETRY_DELAY = Duration.ofSeconds(2);
+
+	private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+	private final ExecutorService executor;
+	private final int attempts;
+	private final Duration retryDelay;
+
+	public UploadQueue() {
+		this(DEFAULT_CONCURRENCY, DEFAULT_ATTEMPTS, DEFAULT_RETRY_DELAY);
+	}
+
+	/**
+	 * @param concurrency maximum number of uploads in progress at once
+	 * @param attempts    number of times to attempt each upload before failing
+	 * @param retryDelay  delay before the first retry, which increases with each attempt
+	 */
+	public UploadQueue(int concurrency, int attempts, Duration retryDelay) {
+		if (concurrency < 1) throw new IllegalArgumentException("Upload concurrency must be at least 1");
+		if (attempts < 1) throw new IllegalArgumentException("Upload attempts must be at least 1");
+
+		this.executor = Executors.newFixedThreadPool(concurrency, r -> {
+			Thread t = new Thread(r, "upload-" + THREAD_COUNT.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+		this.attempts = attempts;
+		this.retryDelay = retryDelay;
+	}
+
+	/**
+	 * Queue a file to be uploaded to a data store.
+	 *
+	 * @param store data store to upload to
+	 * @param path  local file to upload
+	 * @param name  name to store the file as
+	 * @return a future which completes with the URL of the stored file, or
+	 * completes exceptionally with an {@link UncheckedIOException} if all
+	 * attempts failed
+	 */
+	public CompletableFuture<String> store(DataStore store, Path path, String name) {
+		return CompletableFuture.supplyAsync(() -> {
+			IOException failure = null;
+			for (int attempt = 1; attempt <= attempts; attempt++) {
+				try {
+					final AtomicReference<String> url = new AtomicReference<>();
+					final AtomicReference<IOException> error = new AtomicReference<>();
+					store.store(path, name, (fileUrl, ex) -> {
+						url.set(fileUrl);
+						error.set(ex);
+					});
+
+					if (error.get() == null && url.get() != null) return url.get();
+					failure = error.get() != null ? error.get() : new IOException("No URL returned for " + name);
+				} catch (IOException e) {
+					failure = e;
+				}
+
+				if (attempt < attempts) {
+					try {
+						Thread.sleep(retryDelay.multipliedBy(attempt).toMillis());
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						break;
+					}
+				}
+			}
+			throw new UncheckedIOException(String.format("Failed to upload %s after %d attempt(s)", name, attempts), failure);
+		}, executor);
+	}
+}
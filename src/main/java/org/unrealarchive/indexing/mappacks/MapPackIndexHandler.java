@@ -16,7 +16,6 @@ import java.util.stream.Collectors;
 
 import net.shrimpworks.unreal.packages.IntFile;
 import net.shrimpworks.unreal.packages.Package;
-import net.shrimpworks.unreal.packages.PackageReader;
 import net.shrimpworks.unreal.packages.entities.ExportedObject;
 import net.shrimpworks.unreal.packages.entities.objects.Object;
 import net.shrimpworks.unreal.packages.entities.properties.Property;
@@ -30,6 +29,7 @@ import org.unrealarchive.content.addons.Addon;
 import org.unrealarchive.content.addons.MapGameTypes;
 import org.unrealarchive.content.addons.MapPack;
 import org.unrealarchive.content.addons.MapThemes;
+import org.unrealarchive.indexing.AnalysisCache;
 import org.unrealarchive.indexing.Incoming;
 import org.unrealarchive.indexing.IndexHandler;
 import org.unrealarchive.indexing.IndexLog;
@@ -70,15 +70,14 @@ public class MapPackIndexHandler implements IndexHandler<MapPack> {
 			m.game = IndexUtils.game(incoming).name;
 		}
 
-		try (Package map = map(maps.iterator().next())) {
+		try {
+			Package map = maps.iterator().next().asPackage();
 			if (!gameOverride) {
 				// attempt to detect Unreal maps by possible release date
 				if (map.version < 69 || (m.releaseDate != null && m.releaseDate.compareTo(IndexUtils.RELEASE_UT99) < 0)) m.game = "Unreal";
 				// Unreal does not contain a LevelSummary
 				if (map.version == 68 && map.objectsByClassName("LevelSummary").isEmpty()) m.game = "Unreal";
 			}
-		} catch (IOException e) {
-			log.log(IndexLog.EntryType.CONTINUE, "Failed to read map package", e);
 		} catch (Exception e) {
 			log.log(IndexLog.EntryType.CONTINUE, "Caught while parsing map pack: " + e.getMessage(), e);
 		}
@@ -157,7 +156,8 @@ public class MapPackIndexHandler implements IndexHandler<MapPack> {
 
 		List<BufferedImage> images = new ArrayList<>();
 
-		try (Package pkg = map(map)) {
+		try {
+			Package pkg = map.asPackage();
 			if (Util.extension(map.fileName()).equalsIgnoreCase("ut3")) return scrapeUE3(incoming, map, pkg, p, listConsumer);
 
 			Collection<ExportedObject> maybeLevelInfo = pkg.objectsByClassName("LevelInfo");
@@ -176,7 +176,8 @@ public class MapPackIndexHandler implements IndexHandler<MapPack> {
 				Property screenshot = level.property("Screenshot");
 				images.addAll(IndexUtils.screenshots(incoming, pkg, screenshot));
 			}
-			MapIndexHandler.themes(pkg).forEach((theme, weight) -> themes.compute(theme, (k, v) -> v == null ? weight : v + weight));
+			incoming.context.analysis.get(map, f -> f.themes, AnalysisCache.Facts::withThemes, () -> MapIndexHandler.themes(pkg))
+									 .forEach((theme, weight) -> themes.compute(theme, (k, v) -> v == null ? weight : v + weight));
 		} catch (Throwable e) {
 			incoming.log.log(IndexLog.EntryType.CONTINUE, "Failed to read map properties", e);
 		}
@@ -221,8 +222,4 @@ public class MapPackIndexHandler implements IndexHandler<MapPack> {
 		return p;
 	}
 
-	private Package map(Incoming.IncomingFile file) {
-		return new Package(new PackageReader(file.asChannel()));
-	}
-
 }
\ No newline at end of file
@@ -11,6 +11,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -19,7 +20,6 @@ import java.util.stream.Stream;
 
 import net.shrimpworks.unreal.packages.IntFile;
 import net.shrimpworks.unreal.packages.Package;
-import net.shrimpworks.unreal.packages.PackageReader;
 import net.shrimpworks.unreal.packages.entities.ExportedObject;
 import net.shrimpworks.unreal.packages.entities.Import;
 import net.shrimpworks.unreal.packages.entities.Named;
@@ -37,6 +37,7 @@ import org.unrealarchive.content.addons.Addon;
 import org.unrealarchive.content.addons.Map;
 import org.unrealarchive.content.addons.MapGameTypes;
 import org.unrealarchive.content.addons.MapThemes;
+import org.unrealarchive.indexing.AnalysisCache;
 import org.unrealarchive.indexing.Incoming;
 import org.unrealarchive.indexing.IndexHandler;
 import org.unrealarchive.indexing.IndexLog;
@@ -52,6 +53,18 @@ public class MapIndexHandler implements IndexHandler<Map> {
 
 	private static final int BOT_PATH_MIN = 5; // minimum number fo connected PathNodes to assume whether this map has bot support
 
+	/**
+	 * Describe the rules by which map themes and bot support are derived, so
+	 * results recorded by {@link AnalysisCache} are discarded if they change.
+	 *
+	 * @return description of the analysis rules
+	 */
+	public static String analysisRules() {
+		return String.join(";",
+						   "themes=" + new TreeMap<>(MapThemes.THEMES) + "," + MapThemes.MAX_THEMES + "," + MapThemes.MIN_THRESHOLD,
+						   "bots=" + BOT_PATH_MIN);
+	}
+
 	public static class MapIndexHandlerFactory implements IndexHandlerFactory<Map> {
 
 		@Override
@@ -84,20 +97,19 @@ public class MapIndexHandler implements IndexHandler<Map> {
 		Set<IndexResult.NewAttachment> attachments = new HashSet<>();
 		List<BufferedImage> screenshots = new ArrayList<>();
 
-		try (Package map = map(baseMap)) {
+		try {
+			Package map = baseMap.asPackage();
 			if (map.version < 200) {
 				scrapeUE12(incoming, m, gameOverride, map, screenshots);
 			} else {
 				scrapeUE3(incoming, m, map, screenshots);
 			}
 
-			// Find map themes
+			// Find map themes, and bot support, which may be known from previous analysis of the map
 			m.themes.clear();
-			m.themes.putAll(themes(map));
+			m.themes.putAll(incoming.context.analysis.get(baseMap, f -> f.themes, AnalysisCache.Facts::withThemes, () -> themes(map)));
 
-			m.bots = botSupport(map);
-		} catch (IOException e) {
-			log.log(IndexLog.EntryType.CONTINUE, "Failed to read map package", e);
+			m.bots = incoming.context.analysis.get(baseMap, f -> f.bots, AnalysisCache.Facts::withBots, () -> botSupport(map));
 		} catch (Exception e) {
 			log.log(IndexLog.EntryType.CONTINUE, "Caught while parsing map: " + e.getMessage(), e);
 		}
@@ -244,10 +256,6 @@ public class MapIndexHandler implements IndexHandler<Map> {
 		return shortestMap;
 	}
 
-	private Package map(Incoming.IncomingFile mapFile) {
-		return new Package(new PackageReader(mapFile.asChannel(), false));
-	}
-
 	private String mapName(Incoming.IncomingFile mapFile) {
 		return Util.plainName(mapFile.fileName());
 	}
@@ -12,7 +12,6 @@ import java.util.stream.Stream;
 
 import net.shrimpworks.unreal.packages.IntFile;
 import net.shrimpworks.unreal.packages.Package;
-import net.shrimpworks.unreal.packages.PackageReader;
 import net.shrimpworks.unreal.packages.entities.ExportedObject;
 import net.shrimpworks.unreal.packages.entities.Name;
 import net.shrimpworks.unreal.packages.entities.objects.Object;
@@ -189,7 +188,8 @@ public class ModelIndexHandler implements IndexHandler<Model> {
 					String pkgName = matcher.group(1);
 					incoming.files(FileType.PACKAGE).stream().filter(
 						f -> Util.plainName(f.fileName()).equalsIgnoreCase(pkgName)).findFirst().ifPresent(f -> {
-						try (Package pkg = new Package(new PackageReader(f.asChannel()))) {
+						try {
+							Package pkg = f.asPackage();
 
 							ExportedObject export = pkg.objectByName(new Name(matcher.group(3)));
 							if (export == null) return;
@@ -15,6 +15,7 @@ import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.unrealarchive.common.FileDigest;
 import org.unrealarchive.common.Reflect;
 import org.unrealarchive.common.Util;
 import org.unrealarchive.content.Download;
@@ -184,6 +185,13 @@ public class LocalMirrorClient implements Consumer<LocalMirrorClient.Downloader>
 
 				// download the stuff, hopefully
 				Util.downloadTo(dl.url, destination);
+
+				// verify the download, so a corrupt file is retried rather than kept
+				String hash = FileDigest.digest(destination, FileDigest.Algorithm.SHA1).hex(FileDigest.Algorithm.SHA1);
+				if (!hash.equalsIgnoreCase(content.hash)) {
+					Files.deleteIfExists(destination);
+					throw new IOException(String.format("Downloaded file hash %s does not match expected hash %s", hash, content.hash));
+				}
 			} catch (Throwable t) {
 				if (retryQueue != null) {
 					System.err.printf("%nFailed to download content %s: %s (queued for retry)%n", output, t);
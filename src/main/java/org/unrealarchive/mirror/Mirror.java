@@ -65,7 +65,7 @@ public class Mirror implements Consumer<Mirror.Transfer> {
 		final LocalDate untilFilter = until.plusDays(1);
 
 		this.content = Stream.concat(
-								 repo.all().stream(),
+								 repo.stream(false, true),
 								 Stream.concat(
 									 gametypes.all().stream(),
 									 managed.all().stream()
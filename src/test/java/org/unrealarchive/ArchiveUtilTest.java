@@ -0,0 +1,194 @@
+package org.unrealarchive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.unrealarchive.common.ArchiveUtil;
+import org.unrealarchive.common.MemoryFile;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ArchiveUtilTest {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(30);
+	private static final FileTime MODIFIED = FileTime.fromMillis(1_000_000_000_000L);
+
+	@Test
+	public void extractZip() throws IOException, InterruptedException {
+		final Path tmp = Files.createTempDirectory("ua-test-archive");
+		try {
+			final Path zip = tmp.resolve("test.zip");
+			try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+				out.putNextEntry(new ZipEntry("Maps/"));
+				ZipEntry map = new ZipEntry("Maps/DM-Test.unr");
+				map.setLastModifiedTime(MODIFIED);
+				out.putNextEntry(map);
+				out.write("map".getBytes(StandardCharsets.UTF_8));
+				out.putNextEntry(new ZipEntry("../../escape.txt"));
+				out.write("nope".getBytes(StandardCharsets.UTF_8));
+			}
+
+			final Path dest = ArchiveUtil.extract(zip, tmp.resolve("out"), TIMEOUT);
+			assertEquals("map", Files.readString(dest.resolve("Maps").resolve("DM-Test.unr")));
+			assertEquals(MODIFIED.toMillis() / 1000, Files.getLastModifiedTime(dest.resolve("Maps").resolve("DM-Test.unr")).toMillis() / 1000);
+
+			// entries may not escape the destination
+			assertTrue(Files.exists(dest.resolve("escape.txt")));
+			assertFalse(Files.exists(tmp.resolve("escape.txt")));
+
+			// existing files are not overwritten
+			ArchiveUtil.extract(zip, dest, TIMEOUT);
+			assertTrue(Files.exists(dest.resolve("Maps").resolve("DM-Test_1.unr")));
+		} finally {
+			ArchiveUtil.cleanPath(tmp);
+		}
+	}
+
+	@Test
+	public void readInMemory() throws IOException {
+		final Path tmp = Files.createTempDirectory("ua-test-archive");
+		try {
+			final Path zip = tmp.resolve("test.zip");
+			try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+				ZipEntry map = new ZipEntry("Maps\\DM-Test.unr");
+				map.setLastModifiedTime(MODIFIED);
+				out.putNextEntry(map);
+				out.write("map".getBytes(StandardCharsets.UTF_8));
+				out.putNextEntry(new ZipEntry("ReadMe.txt"));
+				out.write("read me".getBytes(StandardCharsets.UTF_8));
+			}
+
+			final List<MemoryFile> files = ArchiveUtil.readInMemory(zip, 1024, Set.of());
+			assertNotNull(files);
+			assertEquals(2, files.size());
+
+			final MemoryFile map = files.stream().filter(f -> f.name.equals("Maps/DM-Test.unr")).findFirst().orElseThrow();
+			assertEquals(3, map.size);
+			assertEquals(MODIFIED.toMillis() / 1000, map.modified.toMillis() / 1000);
+			try (SeekableByteChannel channel = map.read()) {
+				ByteBuffer buffer = ByteBuffer.allocate(16);
+				channel.position(1);
+				assertEquals(2, channel.read(buffer));
+				assertEquals(-1, channel.read(buffer));
+				assertEquals("ap", new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8));
+			}
+
+			// too large, or excluded file types, are not read into memory
+			assertNull(ArchiveUtil.readInMemory(zip, 8, Set.of()));
+			assertNull(ArchiveUtil.readInMemory(zip, 1024, Set.of("txt")));
+		} finally {
+			ArchiveUtil.cleanPath(tmp);
+		}
+	}
+
+	@Test
+	public void extractTarGz() throws IOException, InterruptedException {
+		final Path tmp = Files.createTempDirectory("ua-test-archive");
+		try {
+			final String longName = "Textures/" + "a".repeat(120) + ".utx";
+
+			final ByteArrayOutputStream tar = new ByteArrayOutputStream();
+			tarEntry(tar, "System/", '5', new byte[0]);
+			tarEntry(tar, "System/Test.u", '0', "package".getBytes(StandardCharsets.UTF_8));
+			tarEntry(tar, "././@LongLink", 'L', (longName + "\0").getBytes(StandardCharsets.UTF_8));
+			tarEntry(tar, longName.substring(0, 99), '0', "texture".getBytes(StandardCharsets.UTF_8));
+			tar.write(new byte[1024]);
+
+			final Path gz = tmp.resolve("test.tar.gz");
+			try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gz))) {
+				out.write(tar.toByteArray());
+			}
+
+			// the tar within the gzip file is also extracted, into a directory named for it
+			final Path dest = ArchiveUtil.extract(gz, tmp.resolve("out"), TIMEOUT, true);
+			assertTrue(Files.exists(dest.resolve("test.tar")));
+
+			final Path inner = dest.resolve("test");
+			assertEquals("package", Files.readString(inner.resolve("System").resolve("Test.u")));
+			assertEquals(MODIFIED.toMillis(), Files.getLastModifiedTime(inner.resolve("System").resolve("Test.u")).toMillis());
+			assertEquals("texture", Files.readString(inner.resolve(longName)));
+		} finally {
+			ArchiveUtil.cleanPath(tmp);
+		}
+	}
+
+	/**
+	 * Compares in-process extraction against external tools. Archives are read
+	 * from the directory specified by the `archives` system property, or the
+	 * test resources if not set, and external tools must be installed.
+	 */
+	@Test
+	@Disabled
+	public void benchmark() throws IOException, InterruptedException {
+		final Path source = Paths.get(System.getProperty("archives", "src/test/resources/org/unrealarchive/indexing"));
+		final List<Path> archives;
+		try (Stream<Path> files = Files.walk(source)) {
+			archives = files.filter(ArchiveUtil::isArchive).toList();
+		}
+
+		for (boolean mode : List.of(false, true, false, true)) {
+			final Path tmp = Files.createTempDirectory("ua-bench-archive");
+			try {
+				final long start = System.nanoTime();
+				for (Path archive : archives) {
+					ArchiveUtil.extract(archive, tmp.resolve(archive.getFileName().toString()), TIMEOUT, true, mode);
+				}
+				System.out.printf("%s: extracted %d archive(s) in %dms%n", mode ? "in-process" : "external",
+								  archives.size(), Duration.ofNanos(System.nanoTime() - start).toMillis());
+			} finally {
+				ArchiveUtil.cleanPath(tmp);
+			}
+		}
+	}
+
+	private static void tarEntry(ByteArrayOutputStream out, String name, char type, byte[] data) throws IOException {
+		final byte[] header = new byte[512];
+		put(header, 0, name.getBytes(StandardCharsets.UTF_8));
+		octal(header, 100, 8, 0644);
+		octal(header, 108, 8, 0);
+		octal(header, 116, 8, 0);
+		octal(header, 124, 12, data.length);
+		octal(header, 136, 12, MODIFIED.toMillis() / 1000);
+		header[156] = (byte)type;
+		put(header, 257, "ustar\0".getBytes(StandardCharsets.US_ASCII));
+		put(header, 263, "00".getBytes(StandardCharsets.US_ASCII));
+
+		long sum = 8 * ' ';
+		for (byte b : header) sum += b & 0xff;
+		put(header, 148, String.format("%06o\0 ", sum).getBytes(StandardCharsets.US_ASCII));
+
+		out.write(header);
+		out.write(data);
+		out.write(new byte[(512 - (data.length % 512)) % 512]);
+	}
+
+	private static void octal(byte[] header, int offset, int length, long value) {
+		put(header, offset, String.format("%0" + (length - 1) + "o", value).getBytes(StandardCharsets.US_ASCII));
+	}
+
+	private static void put(byte[] header, int offset, byte[] value) {
+		System.arraycopy(value, 0, header, offset, value.length);
+	}
+}
@@ -0,0 +1,53 @@
+package org.unrealarchive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.zip.CRC32C;
+
+import org.unrealarchive.common.FileDigest;
+import org.unrealarchive.common.Util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileDigestTest {
+
+	@Test
+	public void multipleDigests() throws IOException, NoSuchAlgorithmException {
+		final byte[] data = new byte[1024 * 1024 + 17];
+		new Random(42).nextBytes(data);
+
+		final Path file = Files.createTempFile("test-digest", ".bin");
+		try {
+			Files.write(file, data);
+
+			FileDigest.Result result = FileDigest.digest(file, FileDigest.Algorithm.SHA1, FileDigest.Algorithm.MD5,
+														 FileDigest.Algorithm.CRC32C);
+
+			assertArrayEquals(MessageDigest.getInstance("SHA-1").digest(data), result.bytes(FileDigest.Algorithm.SHA1));
+			assertArrayEquals(MessageDigest.getInstance("MD5").digest(data), result.bytes(FileDigest.Algorithm.MD5));
+
+			CRC32C crc = new CRC32C();
+			crc.update(data);
+			assertEquals((int)crc.getValue(), ByteBuffer.wrap(result.bytes(FileDigest.Algorithm.CRC32C)).getInt());
+
+			assertEquals(Util.sha1(file), result.hex(FileDigest.Algorithm.SHA1));
+			assertEquals(40, result.hex(FileDigest.Algorithm.SHA1).length());
+
+			// digests not requested are not available
+			assertNull(FileDigest.digest(file, FileDigest.Algorithm.MD5).hex(FileDigest.Algorithm.SHA1));
+
+			// empty files are supported
+			Files.write(file, new byte[0]);
+			assertEquals("da39a3ee5e6b4b0d3255bfef95601890afd80709", Util.sha1(file));
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+}
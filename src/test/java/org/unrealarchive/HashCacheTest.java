@@ -0,0 +1,47 @@
+package org.unrealarchive;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.unrealarchive.common.ArchiveUtil;
+import org.unrealarchive.common.HashCache;
+import org.unrealarchive.common.Util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HashCacheTest {
+
+	@Test
+	public void cachedHashes() throws IOException {
+		final Path tmpRoot = Files.createTempDirectory("test-hashes");
+		try {
+			final Path file = Files.writeString(tmpRoot.resolve("file.txt"), "hello");
+			final Path cacheFile = tmpRoot.resolve("hashes.tsv");
+			final String expected = Util.sha1(file);
+
+			try (HashCache cache = HashCache.open(cacheFile)) {
+				assertEquals(expected, cache.hash(file));
+				assertEquals(1, cache.size());
+			}
+
+			// cached hashes are used while size and modification time are unchanged
+			final FileTime modified = Files.getLastModifiedTime(file);
+			Files.writeString(file, "jello");
+			Files.setLastModifiedTime(file, modified);
+			try (HashCache cache = HashCache.open(cacheFile)) {
+				assertEquals(1, cache.size());
+				assertEquals(expected, cache.hash(file));
+
+				Files.setLastModifiedTime(file, FileTime.fromMillis(modified.toMillis() + 1000));
+				assertEquals(Util.sha1(file), cache.hash(file));
+				assertNotEquals(expected, cache.hash(file));
+			}
+		} finally {
+			ArchiveUtil.cleanPath(tmpRoot);
+		}
+	}
+}
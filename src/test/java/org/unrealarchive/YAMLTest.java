@@ -64,6 +64,19 @@ public class YAMLTest {
 		assertEquals(m.attachments.get(1), another.attachments.get(1));
 	}
 
+	@Test
+	public void copyStuff() throws IOException {
+		Map m = makeMap();
+
+		Addon copy = YAML.copy(m, Addon.class);
+
+		assertNotSame(m, copy);
+		assertInstanceOf(Map.class, copy);
+		assertEquals(YAML.fromString(YAML.toString(m), Addon.class), copy);
+		assertNotSame(m.attachments, copy.attachments);
+		assertEquals(m.attachments.get(1), copy.attachments.get(1));
+	}
+
 	private Map makeMap() {
 		Map m = AddonClassifier.newContent(AddonClassifier.identifierForType(SimpleAddonType.MAP), null);
 
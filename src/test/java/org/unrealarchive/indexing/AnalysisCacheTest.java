@@ -0,0 +1,74 @@
+package org.unrealarchive.indexing;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.unrealarchive.common.ArchiveUtil;
+import org.unrealarchive.content.FileType;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class AnalysisCacheTest {
+
+	@Test
+	public void persistFacts() throws IOException {
+		final Path tmp = Files.createTempDirectory("ua-test-analysis");
+		try (Incoming incoming = new Incoming(new Submission(Files.writeString(tmp.resolve("Test.utx"), "texture"))).prepare()) {
+			final Incoming.IncomingFile file = incoming.files(FileType.TEXTURE).iterator().next();
+			final Path cacheFile = tmp.resolve("analysis.json");
+
+			try (AnalysisCache cache = AnalysisCache.open(cacheFile)) {
+				assertNull(cache.get(file));
+				assertEquals(69, cache.get(file, f -> f.version, AnalysisCache.Facts::withVersion, () -> 69));
+				assertEquals(Map.of("Egypt", 1.0), cache.get(file, f -> f.themes, AnalysisCache.Facts::withThemes,
+																() -> Map.of("Egypt", 1.0)));
+			}
+
+			// known facts are read from the cache, rather than computed again
+			try (AnalysisCache cache = AnalysisCache.open(cacheFile)) {
+				assertEquals(69, cache.get(file, f -> f.version, AnalysisCache.Facts::withVersion, () -> 100));
+				assertEquals(Map.of("Egypt", 1.0), cache.get(file).themes);
+				assertNull(cache.get(file).bots);
+				assertEquals(1, cache.size());
+			}
+		} finally {
+			ArchiveUtil.cleanPath(tmp);
+		}
+	}
+
+	@Test
+	public void discardChangedRules() throws IOException {
+		final Path tmp = Files.createTempDirectory("ua-test-analysis");
+		try (Incoming incoming = new Incoming(new Submission(Files.writeString(tmp.resolve("Test.utx"), "texture"))).prepare()) {
+			final Incoming.IncomingFile file = incoming.files(FileType.TEXTURE).iterator().next();
+			final Path cacheFile = tmp.resolve("analysis.json");
+
+			try (AnalysisCache cache = AnalysisCache.open(cacheFile, "one")) {
+				cache.update(file, f -> f.withBots(true));
+			}
+
+			try (AnalysisCache cache = AnalysisCache.open(cacheFile, "one")) {
+				assertEquals(true, cache.get(file).bots);
+			}
+
+			// facts derived by different rules are not used
+			try (AnalysisCache cache = AnalysisCache.open(cacheFile, "two")) {
+				assertEquals(0, cache.size());
+				assertFalse(cache.get(file, f -> f.bots, AnalysisCache.Facts::withBots, () -> false));
+			}
+
+			try (AnalysisCache cache = AnalysisCache.open(cacheFile, "two")) {
+				assertEquals(false, cache.get(file).bots);
+				assertEquals(1, cache.size());
+			}
+		} finally {
+			ArchiveUtil.cleanPath(tmp);
+		}
+	}
+}
@@ -0,0 +1,185 @@
+package org.unrealarchive.indexing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import org.unrealarchive.common.ArchiveUtil;
+import org.unrealarchive.content.ChangeJournal;
+import org.unrealarchive.content.addons.Addon;
+import org.unrealarchive.content.addons.SimpleAddonRepository;
+import org.unrealarchive.storage.DataStore;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ContentManagerTest {
+
+	@Test
+	public void retryUploads() throws IOException {
+		final Path tmp = Files.createTempDirectory("ua-test-cm");
+		try {
+			final SimpleAddonRepository repo = new SimpleAddonRepository.FileRepository(Files.createDirectories(tmp.resolve("content")));
+			final FlakyStore store = new FlakyStore(1);
+			final ContentManager cm = new ContentManager(repo, store, store, ChangeJournal.NONE,
+														 new UploadQueue(2, 3, Duration.ZERO), PendingUploads.NONE);
+
+			final Path shot = Files.writeString(tmp.resolve("shot.png"), "image");
+			final Submission sub = new Submission(Files.writeString(tmp.resolve("file.zip"), "content"));
+
+			assertTrue(cm.checkin(new IndexResult<>(map(), Set.of(attachment(shot))), sub));
+
+			final Addon stored = repo.forHash("10000000");
+			assertNotNull(stored);
+			assertEquals(1, stored.attachments.size());
+			assertTrue(stored.downloads.stream().anyMatch(d -> d.direct));
+			assertFalse(Files.exists(shot));
+		} finally {
+			ArchiveUtil.cleanPath(tmp);
+		}
+	}
+
+	@Test
+	public void resumeUploads() throws IOException {
+		final Path tmp = Files.createTempDirectory("ua-test-cm");
+		try {
+			final SimpleAddonRepository repo = new SimpleAddonRepository.FileRepository(Files.createDirectories(tmp.resolve("content")));
+			final PendingUploads pending = new PendingUploads(tmp.resolve("pending"));
+
+			final Path shot = Files.writeString(tmp.resolve("shot.png"), "image");
+			final Submission sub = new Submission(Files.writeString(tmp.resolve("file.zip"), "content"));
+
+			// uploads fail, so content is not written, and is held as pending instead
+			final FlakyStore broken = new FlakyStore(Integer.MAX_VALUE);
+			final ContentManager failing = new ContentManager(repo, broken, broken, ChangeJournal.NONE,
+															  new UploadQueue(2, 2, Duration.ZERO), pending);
+			assertThrows(IOException.class, () -> failing.checkin(new IndexResult<>(map(), Set.of(attachment(shot))), sub));
+			assertNull(repo.forHash("10000000"));
+			assertEquals(1, pending.all().size());
+			assertFalse(Files.exists(shot));
+
+			// the submitted file is retained, even if the original is a temporary file which is cleaned up
+			Files.delete(sub.filePath);
+
+			// once the store is available again, resuming uploads writes the content
+			final FlakyStore working = new FlakyStore(0);
+			final ContentManager resuming = new ContentManager(repo, working, working, ChangeJournal.NONE,
+															   new UploadQueue(2, 2, Duration.ZERO), pending);
+			assertEquals(1, resuming.resume());
+			assertEquals(0, pending.all().size());
+
+			final Addon stored = repo.forHash("10000000");
+			assertNotNull(stored);
+			assertEquals(1, stored.attachments.size());
+			assertTrue(stored.downloads.stream().anyMatch(d -> d.direct));
+		} finally {
+			ArchiveUtil.cleanPath(tmp);
+		}
+	}
+
+	@Test
+	public void batchChanges() throws IOException {
+		final Path tmp = Files.createTempDirectory("ua-test-cm");
+		try {
+			final SimpleAddonRepository repo = new SimpleAddonRepository.FileRepository(Files.createDirectories(tmp.resolve("content")));
+			final ChangeJournal journal = new ChangeJournal(tmp.resolve("changes.log"));
+			final FlakyStore store = new FlakyStore(0);
+			final ContentManager cm = new ContentManager(repo, store, store, journal);
+
+			repo.put(map());
+
+			try (SimpleAddonRepository.WriteBatch batch = cm.batch(false)) {
+				final Addon co = cm.checkout("10000000");
+				co.author = "Alice";
+				batch.put(co);
+
+				// nothing is recorded until the batch is committed
+				assertTrue(cm.changes().isEmpty());
+				assertEquals(1, batch.commit());
+			}
+
+			assertEquals("Alice", repo.forHash("10000000").author);
+			assertEquals(Set.of("10000000"), cm.changes());
+
+			final ChangeJournal.Changes changes = journal.since(0);
+			assertEquals(1, changes.changes().size());
+			assertEquals(ChangeJournal.Operation.UPDATE, changes.changes().get(0).operation());
+			assertEquals("10000000", changes.changes().get(0).id());
+		} finally {
+			ArchiveUtil.cleanPath(tmp);
+		}
+	}
+
+	private IndexResult.NewAttachment attachment(Path path) {
+		return new IndexResult.NewAttachment(Addon.AttachmentType.IMAGE, path.getFileName().toString(), path);
+	}
+
+	private Addon map() {
+		org.unrealarchive.content.addons.Map m = new org.unrealarchive.content.addons.Map();
+		m.contentType = "MAP";
+		m.game = "Unreal Tournament";
+		m.gametype = "Capture the Flag";
+		m.author = "Bob";
+		m.name = "CTF-DeckUnlimited";
+		m.releaseDate = "2023-07";
+		m.hash = "10000000";
+		return m;
+	}
+
+	/**
+	 * A store which fails the first few attempts to store each file.
+	 */
+	private static class FlakyStore implements DataStore {
+
+		private final int failures;
+		private final Map<String, Integer> attempts = new ConcurrentHashMap<>();
+
+		private FlakyStore(int failures) {
+			this.failures = failures;
+		}
+
+		@Override
+		public void store(Path path, String name, BiConsumer<String, IOException> stored) throws IOException {
+			if (!Files.exists(path)) throw new IOException("File not found " + path);
+			if (attempts.merge(name, 1, Integer::sum) <= failures) throw new IOException("Upload failed for " + name);
+			stored.accept("test://" + name, null);
+		}
+
+		@Override
+		public void store(InputStream stream, long dataSize, String name, BiConsumer<String, IOException> stored) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void delete(String url, Consumer<Boolean> deleted) {
+			deleted.accept(true);
+		}
+
+		@Override
+		public void download(String url, Consumer<Path> downloaded) {
+			downloaded.accept(null);
+		}
+
+		@Override
+		public void exists(String name, Consumer<Object> result) {
+			result.accept(false);
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
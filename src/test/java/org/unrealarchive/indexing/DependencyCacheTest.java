@@ -0,0 +1,115 @@
+package org.unrealarchive.indexing;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.unrealarchive.common.ArchiveUtil;
+import org.unrealarchive.common.Util;
+import org.unrealarchive.content.FileType;
+import org.unrealarchive.content.Games;
+import org.unrealarchive.content.addons.Addon;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class DependencyCacheTest {
+
+	@Test
+	public void cacheResults() {
+		final DependencyCache cache = new DependencyCache(2);
+		final List<Addon.Dependency> deps = new ArrayList<>(List.of(
+			new Addon.Dependency(Addon.DependencyStatus.MISSING, "SomeTextures", null)
+		));
+
+		assertNull(cache.get("a"));
+		cache.put("a", deps);
+		cache.put("b", List.of());
+
+		// results are copied, so later changes to the original list are not seen
+		deps.clear();
+		assertEquals(1, cache.get("a").size());
+		assertNotNull(cache.get("b"));
+
+		// the least recently used entry is discarded when full
+		cache.get("a");
+		cache.put("c", List.of());
+		assertNull(cache.get("b"));
+		assertNotNull(cache.get("a"));
+
+		assertEquals(4, cache.hits());
+		assertEquals(2, cache.misses());
+
+		// a cache with no capacity retains nothing
+		DependencyCache.NONE.put("a", List.of());
+		assertNull(DependencyCache.NONE.get("a"));
+	}
+
+	@Test
+	public void reuseAcrossArchives() throws IOException {
+		final Path tmp = Files.createTempDirectory("ua-test-deps");
+		final DependencyCache cache = new DependencyCache(10);
+
+		// the map only imports the textures, so other files alongside them make no difference
+		final Map<String, Set<String>> imports = Map.of(
+			"mymap", Set.of("Engine", "MyTextures"),
+			"mytextures", Set.of("Core")
+		);
+		final AtomicInteger reads = new AtomicInteger();
+		final Function<Incoming.IncomingFile, Set<String>> importsOf = f -> cache.imports(f, p -> {
+			reads.incrementAndGet();
+			return imports.getOrDefault(Util.plainName(p.fileName()).toLowerCase(), Set.of());
+		});
+
+		try (Incoming first = incoming(tmp.resolve("first.zip"),
+									   Map.of("MyMap.unr", "map", "MyTextures.utx", "textures", "Other.u", "other"));
+			 Incoming second = incoming(tmp.resolve("second.zip"),
+										Map.of("MyMap.unr", "map", "MyTextures.utx", "textures", "Another.utx", "another"));
+			 Incoming changed = incoming(tmp.resolve("changed.zip"),
+										 Map.of("MyMap.unr", "map", "MyTextures.utx", "different textures"))) {
+
+			cache.put(key(first, importsOf), List.of(new Addon.Dependency(Addon.DependencyStatus.OK, "MyTextures", null)));
+
+			// the same map with the same textures is found in an archive with other companions
+			assertEquals(1, cache.get(key(second, importsOf)).size());
+			// but not alongside different textures
+			assertNull(cache.get(key(changed, importsOf)));
+			assertNotEquals(key(first, importsOf), key(changed, importsOf));
+
+			// imports are only read once for each distinct file
+			assertEquals(3, reads.get());
+		} finally {
+			ArchiveUtil.cleanPath(tmp);
+		}
+	}
+
+	private String key(Incoming incoming, Function<Incoming.IncomingFile, Set<String>> imports) {
+		Incoming.IncomingFile map = incoming.files(FileType.MAP).iterator().next();
+		return DependencyCache.key(Games.UNREAL_TOURNAMENT, map,
+								   DependencyCache.companions(map, incoming.files(FileType.PACKAGES), imports));
+	}
+
+	private Incoming incoming(Path zip, Map<String, String> files) throws IOException {
+		try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+			for (Map.Entry<String, String> f : files.entrySet()) {
+				out.putNextEntry(new ZipEntry(f.getKey()));
+				out.write(f.getValue().getBytes(StandardCharsets.UTF_8));
+				out.closeEntry();
+			}
+		}
+		return new Incoming(new Submission(zip)).prepare();
+	}
+}
@@ -0,0 +1,49 @@
+package org.unrealarchive.indexing;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.unrealarchive.common.ArchiveUtil;
+import org.unrealarchive.common.Util;
+import org.unrealarchive.content.FileType;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class IncomingTest {
+
+	@Test
+	public void prefetch() throws IOException {
+		final Path tmp = Files.createTempDirectory("ua-test-incoming");
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			final Path pkg = Files.writeString(tmp.resolve("Test.u"), "not really a package");
+
+			try (Incoming incoming = new Incoming(new Submission(pkg), IndexLog.NOP, IndexContext.DEFAULT, executor).prepare()) {
+				final Incoming.IncomingFile file = incoming.files(FileType.CODE).iterator().next();
+
+				final Path extracted = incoming.contentRoot.resolve("Test.u");
+				final int size = (int)Files.size(extracted);
+				final LocalDateTime date = Files.getLastModifiedTime(extracted).toInstant().atOffset(ZoneOffset.UTC).toLocalDateTime();
+				final String hash = Util.sha1(extracted);
+
+				incoming.prefetch(incoming.files(FileType.ALL));
+
+				// once prefetched, details remain available even after the file is gone
+				Files.delete(extracted);
+				assertEquals(size, file.fileSize());
+				assertEquals(date, file.fileDate());
+				assertEquals(hash, file.hash());
+			}
+		} finally {
+			executor.shutdownNow();
+			ArchiveUtil.cleanPath(tmp);
+		}
+	}
+}
@@ -6,6 +6,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 
+import net.shrimpworks.unreal.packages.Package;
+
+import org.unrealarchive.content.FileType;
 import org.unrealarchive.content.Games;
 import org.unrealarchive.content.addons.Map;
 import org.unrealarchive.content.addons.MapGameTypes;
@@ -13,12 +16,15 @@ import org.unrealarchive.content.addons.SimpleAddonType;
 import org.unrealarchive.indexing.AddonClassifier;
 import org.unrealarchive.indexing.Incoming;
 import org.unrealarchive.indexing.IndexLog;
+import org.unrealarchive.indexing.IndexUtils;
 import org.unrealarchive.indexing.Submission;
 
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class MapIndexerTest {
 
@@ -46,6 +52,36 @@ public class MapIndexerTest {
 		}
 	}
 
+	@Test
+	public void sharedPackage() throws IOException {
+		Path tmpMap = Files.createTempFile("test-dm-longestyard", ".zip");
+		try (InputStream is = getClass().getResourceAsStream("../maps/dm-longestyard.zip")) {
+			Files.copy(is, tmpMap, StandardCopyOption.REPLACE_EXISTING);
+
+			Submission sub = new Submission(tmpMap);
+			IndexLog log = new IndexLog();
+			Incoming incoming = new Incoming(sub, log).prepare();
+
+			// game detection parses the map package
+			Incoming.IncomingFile mapFile = incoming.files(FileType.MAP).iterator().next();
+			assertEquals(Games.UNREAL_TOURNAMENT, IndexUtils.game(incoming));
+			assertEquals(0, incoming.packagesReused());
+			Package detected = mapFile.asPackage();
+			final int reused = incoming.packagesReused();
+
+			// and the map indexer uses the same package, rather than parsing it again
+			MapIndexHandler indexer = new MapIndexHandler();
+			Map map = AddonClassifier.newContent(AddonClassifier.identifierForType(SimpleAddonType.MAP), incoming);
+			indexer.index(incoming, map, r -> assertEquals("The Longest Yard", r.content.title));
+
+			assertSame(detected, mapFile.asPackage());
+			assertTrue(incoming.packagesReused() > reused);
+			incoming.close();
+		} finally {
+			Files.deleteIfExists(tmpMap);
+		}
+	}
+
 	@Test
 	public void ut3Map() throws IOException {
 		Path tmpMap = Files.createTempFile("test-ctf-power", ".rar");
@@ -1,15 +1,35 @@
 package org.unrealarchive.mirror;
 
+import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.unrealarchive.common.ArchiveUtil;
+import org.unrealarchive.content.Download;
+import org.unrealarchive.content.addons.Addon;
 import org.unrealarchive.content.addons.Map;
 
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class LocalMirrorclientTest {
 
@@ -41,4 +61,121 @@ public class LocalMirrorclientTest {
 			String.format("%s/Unreal Tournament/MAP/Capture the Flag/plain word/unknown", System.getProperty("java.io.tmpdir"))
 		), p);
 	}
+
+	@Test
+	public void verifyDownload() throws IOException {
+		final Path tmp = Files.createTempDirectory("ua-test-mirror");
+		final byte[] body = "map content".getBytes(StandardCharsets.UTF_8);
+		try (FileServer server = new FileServer(body)) {
+			final Map good = download(server, sha1(body));
+			final Deque<Addon> retry = new ArrayDeque<>();
+
+			final LocalMirrorClient.Downloader downloader = new LocalMirrorClient.Downloader(good, tmp.resolve("good"), null, retry);
+			downloader.run();
+
+			assertTrue(Files.exists(downloader.destination));
+			assertTrue(retry.isEmpty());
+			assertEquals(1, server.requests.get());
+		} finally {
+			ArchiveUtil.cleanPath(tmp);
+		}
+	}
+
+	@Test
+	public void retryHashMismatch() throws IOException {
+		final Path tmp = Files.createTempDirectory("ua-test-mirror");
+		try (FileServer server = new FileServer("corrupt content".getBytes(StandardCharsets.UTF_8))) {
+			final Map bad = download(server, sha1("map content".getBytes(StandardCharsets.UTF_8)));
+			final Deque<Addon> retry = new ArrayDeque<>();
+
+			// a download which does not match the content hash is removed, and queued for retry
+			final LocalMirrorClient.Downloader downloader = new LocalMirrorClient.Downloader(bad, tmp.resolve("bad"), null, retry);
+			downloader.run();
+
+			assertFalse(Files.exists(downloader.destination));
+			assertEquals(List.of(bad), List.copyOf(retry));
+
+			// the mirror keeps retrying until it reaches the retry limit, without keeping the corrupt file
+			server.requests.set(0);
+			final LocalMirrorClient client = new LocalMirrorClient(1, (total, remaining, last) -> {
+			});
+			try {
+				assertTrue(client.mirror(List.of(bad), tmp.resolve("mirror")));
+			} finally {
+				client.cancel();
+			}
+
+			// the initial attempt, plus each retry
+			assertEquals(5, server.requests.get());
+			assertFalse(Files.exists(client.outputPath(bad, tmp.resolve("mirror")).resolve(bad.originalFilename)));
+		} finally {
+			ArchiveUtil.cleanPath(tmp);
+		}
+	}
+
+	private static Map download(FileServer server, String hash) {
+		Map map = new Map();
+		map.contentType = "MAP";
+		map.game = "Unreal Tournament";
+		map.gametype = "Capture the Flag";
+		map.author = "Bob";
+		map.name = "CTF-DeckUnlimited";
+		map.releaseDate = "2023-07";
+		map.originalFilename = "CTF-DeckUnlimited.zip";
+		map.hash = hash;
+		map.downloads.add(new Download(server.url("CTF-DeckUnlimited.zip"), true, Download.DownloadState.OK));
+		return map;
+	}
+
+	private static String sha1(byte[] data) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(data));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * A minimal HTTP server, which responds to every request with the same content.
+	 */
+	private static class FileServer implements Closeable {
+
+		private final ServerSocket socket;
+		private final AtomicInteger requests = new AtomicInteger();
+
+		private FileServer(byte[] body) throws IOException {
+			this.socket = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+
+			Thread server = new Thread(() -> {
+				while (!socket.isClosed()) {
+					try (Socket client = socket.accept()) {
+						BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.ISO_8859_1));
+						for (String line = in.readLine(); line != null && !line.isEmpty(); line = in.readLine()) {
+							// discard request headers
+						}
+						requests.incrementAndGet();
+
+						OutputStream out = client.getOutputStream();
+						out.write(String.format("HTTP/1.1 200 OK\r\nContent-Length: %d\r\nConnection: close\r\n\r\n", body.length)
+										.getBytes(StandardCharsets.ISO_8859_1));
+						out.write(body);
+						out.flush();
+					} catch (IOException e) {
+						// server closed, or client went away
+					}
+				}
+			});
+			server.setDaemon(true);
+			server.start();
+		}
+
+		private String url(String file) {
+			return String.format("http://%s:%d/%s", socket.getInetAddress().getHostAddress(), socket.getLocalPort(), file);
+		}
+
+		@Override
+		public void close() throws IOException {
+			socket.close();
+		}
+	}
 }
@@ -12,6 +12,8 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Base64;
@@ -19,11 +21,13 @@ import java.util.Calendar;
 import java.util.List;
 import java.util.Locale;
 import java.util.TimeZone;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 import org.unrealarchive.common.CLI;
+import org.unrealarchive.common.FileDigest;
 import org.unrealarchive.common.Util;
 
 /**
@@ -93,11 +97,18 @@ public class AzStore implements DataStore {
 
 	@Override
 	public void store(Path path, String name, BiConsumer<String, IOException> stored) throws IOException {
-		store(Files.newInputStream(path, StandardOpenOption.READ), Files.size(path), name, stored);
+		// the blob's MD5 is recorded when committing, and may be verified by clients when downloading.
+		// it's only computed if the blob actually needs to be uploaded.
+		store(Files.newInputStream(path, StandardOpenOption.READ), name,
+			  () -> FileDigest.digest(path, FileDigest.Algorithm.MD5).base64(FileDigest.Algorithm.MD5), stored);
 	}
 
 	@Override
 	public void store(InputStream stream, long dataSize, String name, BiConsumer<String, IOException> stored) throws IOException {
+		store(stream, name, () -> null, stored);
+	}
+
+	private void store(InputStream stream, String name, Callable<String> md5, BiConsumer<String, IOException> stored) {
 		try {
 			exists(name, exists -> {
 				if (exists instanceof URL) {
@@ -108,7 +119,7 @@ public class AzStore implements DataStore {
 						List<String> sentBlockIds = sendBlocks(name, stream);
 
 						// Finally, commit all the blocks to complete the blob in storage
-						commitBlocks(name, sentBlockIds);
+						commitBlocks(name, sentBlockIds, md5.call());
 
 						stored.accept(getBlobUrlBase(name).toString(), null);
 					} catch (Exception e) {
@@ -248,6 +259,7 @@ public class AzStore implements DataStore {
 			}
 
 			String currentBlockId = generateBlockId(currentBlock);
+			String blockMd5 = blockMd5(buffer, bytesRead);
 			URL chunkUrl = getBlobUrl(name, true, "block", currentBlockId);
 
 			Boolean shouldRetry = false;
@@ -258,6 +270,8 @@ public class AzStore implements DataStore {
 			// again. If we reach all attempts, we will throw a hard error to do a full retry.
 			do {
 				HttpURLConnection httpCon = setupPutConnection(chunkUrl, bytesRead, true);
+				// the service verifies each block's content against its MD5
+				httpCon.setRequestProperty("Content-MD5", blockMd5);
 				httpCon.connect();
 
 				try (OutputStream output = httpCon.getOutputStream()) {
@@ -284,6 +298,17 @@ public class AzStore implements DataStore {
 		return sentBlockIds;
 	}
 
+	// Generate the base64 MD5 of a block's content, for the service to verify
+	private String blockMd5(byte[] buffer, int length) {
+		try {
+			MessageDigest md = MessageDigest.getInstance("MD5");
+			md.update(buffer, 0, length);
+			return Base64.getEncoder().encodeToString(md.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
 	// Generate a temporary reference id for the block to use during finalization
 	private String generateBlockId(long currentBlock) {
 		return Base64.getEncoder().encodeToString(String.format("%010d", currentBlock).getBytes());
@@ -291,12 +316,13 @@ public class AzStore implements DataStore {
 
 	// Given a list of all written block ids and name of the final blob, commit
 	// the blocks to the blob by sending the XML manifest
-	private void commitBlocks(String name, List<String> sentBlockIds) throws IOException {
+	private void commitBlocks(String name, List<String> sentBlockIds, String md5) throws IOException {
 		// Finalize the blob by sending a full block id manifest
 		URL manifestSendUrl = getBlobUrl(name, true, "blocklist", null);
 		byte[] blockManifest = generateBlockIdManifest(sentBlockIds);
 
 		HttpURLConnection httpCon = setupPutConnection(manifestSendUrl, blockManifest.length, false);
+		if (md5 != null) httpCon.setRequestProperty("x-ms-blob-content-md5", md5);
 		httpCon.connect();
 
 		try (OutputStream output = httpCon.getOutputStream()) {
@@ -7,6 +7,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -19,6 +21,7 @@ import io.minio.StatObjectResponse;
 import io.minio.errors.ErrorResponseException;
 
 import org.unrealarchive.common.CLI;
+import org.unrealarchive.common.FileDigest;
 import org.unrealarchive.common.Util;
 
 /**
@@ -69,11 +72,21 @@ public class S3Store implements DataStore {
 
 	@Override
 	public void store(Path path, String name, BiConsumer<String, IOException> stored) throws IOException {
-		store(Files.newInputStream(path, StandardOpenOption.READ), Files.size(path), name, stored);
+		// record content digests with the object, so it may be verified later.
+		// they're only computed if the object actually needs to be uploaded.
+		store(Files.newInputStream(path, StandardOpenOption.READ), Files.size(path), name, () -> {
+			FileDigest.Result digest = FileDigest.digest(path, FileDigest.Algorithm.SHA1, FileDigest.Algorithm.MD5);
+			return Map.of("sha1", digest.hex(FileDigest.Algorithm.SHA1), "md5", digest.hex(FileDigest.Algorithm.MD5));
+		}, stored);
 	}
 
 	@Override
 	public void store(InputStream stream, long dataSize, String name, BiConsumer<String, IOException> stored) throws IOException {
+		store(stream, dataSize, name, Map::of, stored);
+	}
+
+	private void store(InputStream stream, long dataSize, String name, Callable<Map<String, String>> metadata,
+					   BiConsumer<String, IOException> stored) throws IOException {
 		final String nom = name.replaceAll("\\$", "s"); // $ seems to not play well with S3 objects
 		exists(nom, (exits) -> {
 			if (exits instanceof StatObjectResponse) {
@@ -87,6 +100,7 @@ public class S3Store implements DataStore {
 									 .object(nom)
 									 .stream(stream, dataSize, -1)
 									 .contentType(Util.mimeType(Util.extension(name)))
+									 .userMetadata(metadata.call())
 									 .build()
 					);
 					stored.accept(Util.toUriString(makePublicUrl(bucket, nom)), null);
@@ -10,7 +10,6 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -41,9 +40,9 @@ public class MESSubmitter {
 		SimpleAddonRepository contentRepo, String rootUrl, String mseUrl, String mseToken, int batchSize,
 		Consumer<Double> progress, Consumer<Boolean> done
 	) throws IOException {
-		Collection<Addon> contents = contentRepo.all(false);
+		Iterable<Addon> contents = contentRepo.stream(false, false)::iterator;
 		Path root = Paths.get("");
-		final int count = contents.size();
+		final long count = contentRepo.countByGame().values().stream().mapToLong(Long::longValue).sum();
 		int i = 0;
 
 		final List<Map<String, Object>> batchDocs = new ArrayList<>(batchSize);
@@ -91,14 +90,7 @@ public class MESSubmitter {
 		for (WikiRepository.Wiki wiki : wikiManager.all()) {
 			int i = 0;
 
-			Set<WikiPage> candidates = wiki.all().parallelStream()
-										   .filter(p -> p.parse.categories
-											   .stream().noneMatch(c -> wiki.skipCategories.stream().anyMatch(c.name::contains))
-										   )
-										   .filter(p -> p.parse.templates
-											   .stream().noneMatch(c -> wiki.skipTemplates.stream().anyMatch(c.name::contains))
-										   )
-										   .collect(Collectors.toSet());
+			Set<WikiPage> candidates = wiki.pages(wiki::publishable);
 
 			final List<Map<String, Object>> batchDocs = new ArrayList<>(batchSize);
 
@@ -57,8 +57,14 @@ public class Main {
 		}
 
 		switch (cli.commands()[0].toLowerCase()) {
-			case "www" -> www(contentRepo(cli), gameTypeRepo(cli), documentRepo(cli), managedRepo(cli), wikiRepo(cli), cli);
-			case "search-submit" -> searchSubmit(contentRepo(cli), documentRepo(cli), managedRepo(cli), wikiRepo(cli), cli);
+			case "www" -> {
+				Repositories repos = bootstrap(cli, Repo.CONTENT, Repo.GAMETYPES, Repo.DOCUMENTS, Repo.MANAGED, Repo.WIKIS);
+				www(repos.content(), repos.gameTypes(), repos.documents(), repos.managed(), repos.wikis(), cli);
+			}
+			case "search-submit" -> {
+				Repositories repos = bootstrap(cli, Repo.CONTENT, Repo.DOCUMENTS, Repo.MANAGED, Repo.WIKIS);
+				searchSubmit(repos.content(), repos.documents(), repos.managed(), repos.wikis(), cli);
+			}
 			case "summary" -> System.out.println(contentRepo(cli).summary());
 			default -> {
 				System.out.printf("Command \"%s\" does not exist!%n%n", cli.commands()[0]);
@@ -176,6 +182,10 @@ public class Main {
 		allPages.addAll(SiteMap.siteMap(SiteMap.SITE_ROOT, outputPath, allPages, 50000, features).generate());
 
 		System.out.printf("Output %d pages in %.2fs%n", allPages.size(), (System.currentTimeMillis() - start) / 1000f);
+
+		if (contentRepo instanceof SimpleAddonRepository.FileRepository fileRepo) {
+			System.err.printf("Content cache: %s%n", fileRepo.cacheStats());
+		}
 	}
 
 	private static void searchSubmit(SimpleAddonRepository contentRepo, DocumentRepository documentRepo,
@@ -63,13 +63,7 @@ public class Wiki implements PageGenerator {
 		Set<String> users = ConcurrentHashMap.newKeySet();
 		Set<String> discussions = ConcurrentHashMap.newKeySet();
 
-		Set<WikiPage> candidates = wiki.all().parallelStream()
-									   .filter(p -> p.parse.categories
-										   .stream().noneMatch(c -> wiki.skipCategories.stream().anyMatch(c.name::contains))
-									   )
-									   .filter(p -> p.parse.templates
-										   .stream().noneMatch(c -> wiki.skipTemplates.stream().anyMatch(c.name::contains))
-									   )
+		Set<WikiPage> candidates = wiki.pages(wiki::publishable).parallelStream()
 									   .peek(p -> {
 										   // collect category associations
 										   p.parse.categories.stream()
@@ -46,7 +46,7 @@ public class Authors extends ContentPageGenerator {
 													 ManagedContentRepository managed) {
 		final TreeMap<String, LetterGroup> letters = new TreeMap<>();
 
-		Stream.concat(Stream.concat(content.all(false).stream(),
+		Stream.concat(Stream.concat(content.stream(false, false),
 									gameTypes.all().stream()), managed.all().stream())
 			  .filter(c -> c.author().length() > 2)
 			  .filter(c -> !c.author().equalsIgnoreCase("Unknown"))
@@ -24,7 +24,7 @@ public class FileDetails extends ContentPageGenerator {
 
 	private Map<Addon.ContentFile, List<Addon>> loadContentFiles(SimpleAddonRepository content) {
 		final Map<Addon.ContentFile, List<Addon>> contentFiles = new HashMap<>();
-		content.all()
+		content.stream(false, true)
 			   .forEach(c -> {
 				   for (Addon.ContentFile f : c.files) {
 					   Collection<Addon> contents = contentFiles.computeIfAbsent(f, h -> new ArrayList<>());
@@ -3,9 +3,7 @@ package org.unrealarchive.www.content;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.unrealarchive.content.Games;
 import org.unrealarchive.content.addons.GameType;
@@ -23,7 +21,6 @@ public class MapPacks extends GenericContentPage<MapPack> {
 	private static final String LETTER_SUBGROUP = "all";
 
 	private final GameTypeRepository gametypes;
-	private final java.util.Map<Integer, GameType> gameTypeCache = new ConcurrentHashMap<>();
 
 	public MapPacks(SimpleAddonRepository content, Path output, Path staticRoot, SiteFeatures features,
 					GameTypeRepository gametypes) {
@@ -54,10 +51,7 @@ public class MapPacks extends GenericContentPage<MapPack> {
 
 			g.getValue().groups.entrySet().parallelStream().forEach(gt -> {
 
-				final GameType gtInfo = gameTypeCache.computeIfAbsent(
-					Objects.hash(g.getValue().game.name.toLowerCase(), gt.getValue().name.toLowerCase()),
-					k -> gametypes.findGametype(g.getValue().game, gt.getValue().name)
-				);
+				final GameType gtInfo = gametypes.findGametype(g.getValue().game, gt.getValue().name);
 
 				// skip the letter breakdown
 				gt.getValue().letters.get(LETTER_SUBGROUP).pages.parallelStream().forEach(p -> {
@@ -94,10 +88,7 @@ public class MapPacks extends GenericContentPage<MapPack> {
 	private void packPage(Templates.PageSet pages, ContentInfo pack) {
 		final MapPack item = pack.item();
 
-		final GameType gt = gameTypeCache.computeIfAbsent(
-			Objects.hash(item.game.toLowerCase(), item.gametype.toLowerCase()),
-			k -> gametypes.findGametype(Games.byName(item.game), item.gametype)
-		);
+		final GameType gt = gametypes.findGametype(Games.byName(item.game), item.gametype);
 
 		localImages(item, pack.path.getParent());
 
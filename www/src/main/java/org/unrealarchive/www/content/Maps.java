@@ -2,9 +2,7 @@ package org.unrealarchive.www.content;
 
 import java.nio.file.Path;
 import java.util.List;
-import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.unrealarchive.content.Games;
 import org.unrealarchive.content.addons.GameType;
@@ -20,7 +18,6 @@ public class Maps extends GenericContentPage<Map> {
 	private static final String SECTION = "Maps";
 
 	private final GameTypeRepository gametypes;
-	private final java.util.Map<Integer, GameType> gameTypeCache = new ConcurrentHashMap<>();
 
 	public Maps(SimpleAddonRepository content, Path output, Path staticRoot, SiteFeatures features,
 				GameTypeRepository gametypes) {
@@ -51,10 +48,7 @@ public class Maps extends GenericContentPage<Map> {
 
 			g.getValue().groups.entrySet().parallelStream().forEach(gt -> {
 
-				final GameType gtInfo = gameTypeCache.computeIfAbsent(
-					Objects.hash(g.getValue().game.name.toLowerCase(), gt.getValue().name.toLowerCase()),
-					k -> gametypes.findGametype(g.getValue().game, gt.getValue().name)
-				);
+				final GameType gtInfo = gametypes.findGametype(g.getValue().game, gt.getValue().name);
 
 				if (gt.getValue().count < Templates.PAGE_SIZE) {
 					// we can output all maps on a single page
@@ -112,10 +106,7 @@ public class Maps extends GenericContentPage<Map> {
 	private void mapPage(Templates.PageSet pages, ContentInfo map) {
 		final Map item = map.item();
 
-		final GameType gtInfo = gameTypeCache.computeIfAbsent(
-			Objects.hash(item.game.toLowerCase(), item.gametype.toLowerCase()),
-			k -> gametypes.findGametype(Games.byName(item.game), item.gametype)
-		);
+		final GameType gtInfo = gametypes.findGametype(Games.byName(item.game), item.gametype);
 
 		localImages(item, root.resolve(map.path).getParent());
 
@@ -45,7 +45,7 @@ public class Packages extends ContentPageGenerator {
 																						 GameTypeRepository gameTypes,
 																						 ManagedContentRepository managed) {
 		final Map<Games, Map<String, Map<Addon.ContentFile, List<Addon>>>> contentFiles = new HashMap<>();
-		content.all()
+		content.stream(false, true)
 			   .forEach(c -> {
 				   for (Addon.ContentFile f : c.files) {
 					   if (PKG_TYPES.contains(Util.extension(f.name).toLowerCase())) {